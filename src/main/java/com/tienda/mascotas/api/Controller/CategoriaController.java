@@ -1,9 +1,14 @@
 package com.tienda.mascotas.api.Controller;
 import com.tienda.mascotas.api.Model.Categoria;
 import com.tienda.mascotas.api.Service.CategoriaService;
+import com.tienda.mascotas.api.Service.RespuestasCatalogo;
+import com.tienda.mascotas.api.Service.VersionCatalogo;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
@@ -19,8 +24,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/categorias")
@@ -30,14 +34,22 @@ public class CategoriaController {
     @Autowired
     private CategoriaService categoriaService;
 
+    @Autowired
+    private VersionCatalogo versionCatalogo;
+
+    @Autowired
+    private RespuestasCatalogo respuestasCatalogo;
+
     @Operation(
             summary = "Obtener todas las categorías",
             description = "Retorna una lista con todas las categorías, activas e inactivas"
     )
-    @ApiResponse(responseCode = "200", description = "Categorías obtenidas correctamente")
+    @ApiResponse(responseCode = "200", description = "Categorías obtenidas correctamente",
+            content = @Content(mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = Categoria.class))))
     @GetMapping
-    public ResponseEntity<List<Categoria>> obtenerTodas() {
-        return ResponseEntity.ok(categoriaService.obtenerTodas());
+    public ResponseEntity<byte[]> obtenerTodas(WebRequest request) {
+        return respuestasCatalogo.responder("categorias", request, categoriaService::obtenerTodas);
     }
 
     @Operation(
@@ -49,8 +61,11 @@ public class CategoriaController {
     @GetMapping("/{id}")
     public ResponseEntity<Categoria> obtenerPorId(
             @Parameter(description = "ID de la categoría a buscar")
-            @PathVariable Long id) {
-
+            @PathVariable Long id,
+            WebRequest request) {
+        if (versionCatalogo.noModificado(request)) {
+            return null;
+        }
         return categoriaService.obtenerPorId(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -115,9 +130,11 @@ public class CategoriaController {
             summary = "Obtener categorías activas",
             description = "Retorna solo las categorías que están activas"
     )
-    @ApiResponse(responseCode = "200", description = "Categorías activas obtenidas correctamente")
+    @ApiResponse(responseCode = "200", description = "Categorías activas obtenidas correctamente",
+            content = @Content(mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = Categoria.class))))
     @GetMapping("/activas")
-    public ResponseEntity<List<Categoria>> obtenerActivas() {
-        return ResponseEntity.ok(categoriaService.obtenerActivas());
+    public ResponseEntity<byte[]> obtenerActivas(WebRequest request) {
+        return respuestasCatalogo.responder("categorias-activas", request, categoriaService::obtenerActivas);
     }
 }
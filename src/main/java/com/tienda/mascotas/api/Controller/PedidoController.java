@@ -1,7 +1,15 @@
 package com.tienda.mascotas.api.Controller;
 
+import com.tienda.mascotas.api.Model.DetallePedido;
+import com.tienda.mascotas.api.Model.FiltroPedidos;
+import com.tienda.mascotas.api.Model.Pagina;
 import com.tienda.mascotas.api.Model.Pedido;
+import com.tienda.mascotas.api.Model.ResumenPedido;
+import com.tienda.mascotas.api.Model.SolicitudPedido;
+import com.tienda.mascotas.api.Service.ExportacionPedidos;
 import com.tienda.mascotas.api.Service.PedidoService;
+import com.tienda.mascotas.api.Service.RecepcionPedidos;
+import com.tienda.mascotas.api.Service.RegistroIdempotencia;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -9,8 +17,11 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 import org.springframework.web.bind.annotation.RestController;
@@ -20,10 +31,18 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/pedidos")
@@ -33,6 +52,18 @@ public class PedidoController {
     @Autowired
     private PedidoService pedidoService;
 
+    @Autowired
+    private RecepcionPedidos recepcionPedidos;
+
+    @Autowired
+    private RegistroIdempotencia registroIdempotencia;
+
+    @Autowired
+    private ExportacionPedidos exportacionPedidos;
+
+    @Value("${pedidos.exportacion.timeout-ms:600000}")
+    private long timeoutExportacion;
+
     @Operation(
             summary = "Obtener todos los pedidos",
             description = "Retorna una lista con todos los pedidos registrados"
@@ -43,6 +74,24 @@ public class PedidoController {
         return ResponseEntity.ok(pedidoService.obtenerTodos());
     }
 
+    @Operation(
+            summary = "Obtener pedidos paginados",
+            description = "Retorna los pedidos del más reciente al más antiguo, por páginas; "
+                    + "para la siguiente página enviar el cursor recibido"
+    )
+    @ApiResponse(responseCode = "200", description = "Página obtenida correctamente")
+    @ApiResponse(responseCode = "400", description = "Cursor inválido")
+    @GetMapping("/pagina")
+    public ResponseEntity<Pagina<Pedido>> obtenerPagina(
+            @Parameter(description = "Cursor devuelto por la página anterior (vacío para la primera)")
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Cantidad de pedidos por página")
+            @RequestParam(required = false) Integer limite) {
+
+        return ResponseEntity.ok(pedidoService.obtenerPagina(new FiltroPedidos(), cursor, limite));
+    }
+
     @Operation(
             summary = "Obtener pedido por ID",
             description = "Busca y retorna un pedido según su ID"
@@ -72,14 +121,111 @@ public class PedidoController {
         return ResponseEntity.ok(pedidoService.obtenerPorUsuario(usuarioId));
     }
 
+    @Operation(
+            summary = "Obtener pedidos por usuario, paginados",
+            description = "Los pedidos del usuario del más reciente al más antiguo, por páginas; "
+                    + "para la siguiente página enviar el cursor recibido"
+    )
+    @ApiResponse(responseCode = "200", description = "Página obtenida correctamente")
+    @ApiResponse(responseCode = "400", description = "Cursor inválido")
+    @GetMapping("/usuario/{usuarioId}/pagina")
+    public ResponseEntity<?> obtenerPaginaPorUsuario(
+            @Parameter(description = "ID del usuario")
+            @PathVariable Long usuarioId,
+
+            @Parameter(description = "Cursor devuelto por la página anterior (vacío para la primera)")
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Cantidad de pedidos por página")
+            @RequestParam(required = false) Integer limite) {
+
+        return pagina(new FiltroPedidos(usuarioId, null, null, null), cursor, limite);
+    }
+
+    @Operation(
+            summary = "Obtener resumen de pedidos por usuario",
+            description = "Id, fecha, total, estado y unidades de cada pedido del usuario, sin detalles. "
+                    + "El detalle completo de un pedido se obtiene con GET /api/pedidos/{id}"
+    )
+    @ApiResponse(responseCode = "200", description = "Resumen de pedidos del usuario")
+    @GetMapping("/usuario/{usuarioId}/resumen")
+    public ResponseEntity<List<ResumenPedido>> obtenerResumenPorUsuario(
+            @Parameter(description = "ID del usuario")
+            @PathVariable Long usuarioId) {
+
+        return ResponseEntity.ok(pedidoService.obtenerResumenPorUsuario(usuarioId));
+    }
+
     @Operation(
             summary = "Crear un nuevo pedido",
             description = "Permite crear un pedido enviando los datos en el cuerpo de la solicitud"
     )
     @ApiResponse(responseCode = "201", description = "Pedido creado correctamente")
+    @ApiResponse(responseCode = "202", description = "Pedido encolado (modo asíncrono), consultar su estado en Location")
     @ApiResponse(responseCode = "400", description = "Datos inválidos")
+    @ApiResponse(responseCode = "409", description = "Otra solicitud con la misma Idempotency-Key sigue en proceso")
+    @ApiResponse(responseCode = "422", description = "La Idempotency-Key ya se usó con otro cuerpo")
+    @ApiResponse(responseCode = "503", description = "Cola de pedidos llena, reintentar más tarde")
     @PostMapping
-    public ResponseEntity<?> crear(@RequestBody Pedido pedido) {
+    public ResponseEntity<?> crear(
+            @Parameter(description = "Clave única por intento de compra; los reintentos con la misma clave devuelven la respuesta original")
+            @RequestHeader(value = RegistroIdempotencia.CABECERA, required = false) String idempotencyKey,
+            @RequestBody Pedido pedido,
+            @Parameter(hidden = true) Principal principal) {
+
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return crearPedido(pedido);
+        }
+        return registroIdempotencia.ejecutar(alcance(principal, pedido), idempotencyKey, cuerpoCanonico(pedido),
+                () -> crearPedido(pedido));
+    }
+
+    // Con token, el usuario autenticado; sin token, el usuario que figura en el pedido
+    private static String alcance(Principal principal, Pedido pedido) {
+        if (principal != null) {
+            return "token:" + principal.getName();
+        }
+        Long usuarioId = pedido.getUsuario() != null ? pedido.getUsuario().getId() : null;
+        return "usuario:" + usuarioId;
+    }
+
+    // Solo los datos que envía el cliente, en un orden fijo
+    private static String cuerpoCanonico(Pedido pedido) {
+        StringBuilder cuerpo = new StringBuilder()
+                .append(pedido.getUsuario() != null ? pedido.getUsuario().getId() : null).append('|')
+                .append(pedido.getDireccionEnvio()).append('|')
+                .append(pedido.getMetodoPago()).append('|')
+                .append(pedido.getNotas());
+        if (pedido.getDetalles() != null) {
+            for (DetallePedido detalle : pedido.getDetalles()) {
+                cuerpo.append('|');
+                if (detalle != null) {
+                    cuerpo.append(detalle.getProducto() != null ? detalle.getProducto().getId() : null)
+                            .append('x').append(detalle.getCantidad());
+                }
+            }
+        }
+        return cuerpo.toString();
+    }
+
+    private ResponseEntity<?> crearPedido(Pedido pedido) {
+        if (recepcionPedidos.isHabilitado()) {
+            SolicitudPedido solicitud;
+            try {
+                solicitud = recepcionPedidos.encolar(pedido);
+            } catch (RuntimeException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+            if (solicitud == null) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .body("Hay demasiados pedidos en espera, intente nuevamente");
+            }
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/pedidos/solicitudes/" + solicitud.getId()))
+                    .body(solicitud);
+        }
+
         try {
             Pedido nuevoPedido = pedidoService.crear(pedido);
             return ResponseEntity.status(HttpStatus.CREATED).body(nuevoPedido);
@@ -88,9 +234,26 @@ public class PedidoController {
         }
     }
 
+    @Operation(
+            summary = "Consultar solicitud de pedido",
+            description = "Retorna el estado de un pedido recibido en modo asíncrono"
+    )
+    @ApiResponse(responseCode = "200", description = "Solicitud encontrada")
+    @ApiResponse(responseCode = "404", description = "Solicitud no encontrada o expirada")
+    @GetMapping("/solicitudes/{id}")
+    public ResponseEntity<SolicitudPedido> obtenerSolicitud(
+            @Parameter(description = "ID de seguimiento devuelto al crear el pedido")
+            @PathVariable String id) {
+
+        return recepcionPedidos.obtener(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @Operation(
             summary = "Actualizar estado del pedido",
-            description = "Actualiza el estado de un pedido (Ej: PENDIENTE, EN_PROCESO, ENTREGADO)"
+            description = "Actualiza el estado de un pedido (Ej: PENDIENTE, EN_PROCESO, ENTREGADO); "
+                    + "CANCELADO devuelve el stock igual que /cancelar y un pedido cancelado ya no cambia de estado"
     )
     @ApiResponse(responseCode = "200", description = "Estado actualizado correctamente")
     @ApiResponse(responseCode = "400", description = "Error al actualizar el estado")
@@ -123,6 +286,26 @@ public class PedidoController {
         return ResponseEntity.ok(pedidoService.obtenerPorEstado(estado));
     }
 
+    @Operation(
+            summary = "Obtener pedidos por estado, paginados",
+            description = "Los pedidos en ese estado del más reciente al más antiguo, por páginas"
+    )
+    @ApiResponse(responseCode = "200", description = "Página obtenida correctamente")
+    @ApiResponse(responseCode = "400", description = "Cursor inválido")
+    @GetMapping("/estado/{estado}/pagina")
+    public ResponseEntity<?> obtenerPaginaPorEstado(
+            @Parameter(description = "Estado del pedido a filtrar")
+            @PathVariable Pedido.EstadoPedido estado,
+
+            @Parameter(description = "Cursor devuelto por la página anterior (vacío para la primera)")
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Cantidad de pedidos por página")
+            @RequestParam(required = false) Integer limite) {
+
+        return pagina(new FiltroPedidos(null, estado, null, null), cursor, limite);
+    }
+
     @Operation(
             summary = "Obtener pedidos dentro de un rango de fechas",
             description = "Devuelve los pedidos creados entre dos fechas determinadas"
@@ -139,6 +322,77 @@ public class PedidoController {
         return ResponseEntity.ok(pedidoService.obtenerPorFechas(inicio, fin));
     }
 
+    @Operation(
+            summary = "Obtener pedidos de un rango de fechas, paginados",
+            description = "Los pedidos creados entre las dos fechas, del más reciente al más antiguo, por páginas"
+    )
+    @ApiResponse(responseCode = "200", description = "Página obtenida correctamente")
+    @ApiResponse(responseCode = "400", description = "Cursor inválido")
+    @GetMapping("/fechas/pagina")
+    public ResponseEntity<?> obtenerPaginaPorFechas(
+            @Parameter(description = "Fecha inicio (formato ISO: 2024-09-10T10:15:00)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
+
+            @Parameter(description = "Fecha fin (formato ISO: 2024-09-10T18:00:00)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fin,
+
+            @Parameter(description = "Cursor devuelto por la página anterior (vacío para la primera)")
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Cantidad de pedidos por página")
+            @RequestParam(required = false) Integer limite) {
+
+        return pagina(new FiltroPedidos(null, null, inicio, fin), cursor, limite);
+    }
+
+    private ResponseEntity<?> pagina(FiltroPedidos filtro, String cursor, Integer limite) {
+        try {
+            return ResponseEntity.ok(pedidoService.obtenerPagina(filtro, cursor, limite));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(
+            summary = "Exportar pedidos de un rango de fechas",
+            description = "Descarga los pedidos como NDJSON o CSV; las filas se escriben a medida que se leen de la base"
+    )
+    @ApiResponse(responseCode = "200", description = "Exportación en curso")
+    @ApiResponse(responseCode = "400", description = "Formato no soportado")
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @Parameter(description = "Fecha inicio (formato ISO: 2024-09-01T00:00:00)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime inicio,
+
+            @Parameter(description = "Fecha fin (formato ISO: 2024-09-30T23:59:59)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fin,
+
+            @Parameter(description = "Formato de salida: ndjson o csv")
+            @RequestParam(defaultValue = "ndjson") String formato,
+
+            @Parameter(hidden = true) NativeWebRequest request) {
+
+        boolean csv = "csv".equalsIgnoreCase(formato);
+        if (!csv && !"ndjson".equalsIgnoreCase(formato)) {
+            // El cuerpo tiene que ser StreamingResponseBody: con ResponseEntity<?> Spring no lo transmite
+            byte[] mensaje = ("Formato no soportado: " + formato).getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.badRequest()
+                    .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                    .body(salida -> salida.write(mensaje));
+        }
+
+        // La solicitud asíncrona se crea antes de llamar al controlador: se le alarga el timeout
+        // solo a esta descarga, sin cambiar el de las demás respuestas asíncronas
+        if (request instanceof AsyncWebRequest asincrona) {
+            asincrona.setTimeout(timeoutExportacion);
+        }
+        StreamingResponseBody cuerpo = salida -> exportacionPedidos.exportar(inicio, fin, csv, salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(csv ? "text/csv;charset=UTF-8" : "application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=pedidos." + (csv ? "csv" : "ndjson"))
+                .body(cuerpo);
+    }
+
     @Operation(
             summary = "Cancelar pedido",
             description = "Marca un pedido como cancelado"
@@ -158,6 +412,16 @@ public class PedidoController {
         }
     }
 
+    @Operation(
+            summary = "Contar pedidos de todos los estados",
+            description = "Retorna en una sola llamada la cantidad de pedidos de cada estado"
+    )
+    @ApiResponse(responseCode = "200", description = "Conteos obtenidos correctamente")
+    @GetMapping("/estadisticas/estado")
+    public ResponseEntity<Map<Pedido.EstadoPedido, Long>> contarTodosLosEstados() {
+        return ResponseEntity.ok(pedidoService.contarTodosLosEstados());
+    }
+
     @Operation(
             summary = "Contar pedidos por estado",
             description = "Retorna la cantidad de pedidos según su estado actual"
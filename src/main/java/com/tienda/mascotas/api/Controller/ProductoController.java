@@ -1,19 +1,34 @@
 package com.tienda.mascotas.api.Controller;
 
+import com.tienda.mascotas.api.Model.CambioProducto;
+import com.tienda.mascotas.api.Model.ConsultaProductos;
+import com.tienda.mascotas.api.Model.FiltroProductos;
+import com.tienda.mascotas.api.Model.Pagina;
 import com.tienda.mascotas.api.Model.Producto;
+import com.tienda.mascotas.api.Model.ResultadoCambios;
+import com.tienda.mascotas.api.Model.ResultadoImportacion;
+import com.tienda.mascotas.api.Service.ImportacionProductos;
 import com.tienda.mascotas.api.Service.ProductoService;
+import com.tienda.mascotas.api.Service.RespuestasCatalogo;
+import com.tienda.mascotas.api.Service.VersionCatalogo;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -24,12 +39,68 @@ public class ProductoController {
     @Autowired
     private ProductoService productoService;
 
+    @Autowired
+    private VersionCatalogo versionCatalogo;
+
+    @Autowired
+    private RespuestasCatalogo respuestasCatalogo;
+
+    @Autowired
+    private ImportacionProductos importacionProductos;
+
     @Operation(summary = "Obtener todos los productos")
     @GetMapping
-    public ResponseEntity<List<Producto>> obtenerTodos() {
+    public ResponseEntity<List<Producto>> obtenerTodos(WebRequest request) {
+        if (versionCatalogo.noModificado(request)) {
+            return null;
+        }
         return ResponseEntity.ok(productoService.obtenerTodos());
     }
 
+    @Operation(summary = "Obtener productos paginados por cursor")
+    @GetMapping("/pagina")
+    public ResponseEntity<Pagina<Producto>> obtenerPagina(
+            @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Cantidad de productos por página") @RequestParam(required = false) Integer limite,
+            WebRequest request) {
+        if (versionCatalogo.noModificado(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(productoService.obtenerPagina(cursor, limite));
+    }
+
+    @Operation(summary = "Consultar productos con filtros, orden y facetas",
+            description = "Combina categoría, rango de precio, stock, destacado y nombre; pagina por cursor y, "
+                    + "en la primera página, devuelve cuántos productos hay por categoría y por rango de precio "
+                    + "con los mismos filtros")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Página de productos y facetas",
+                    content = @Content(schema = @Schema(implementation = ConsultaProductos.class))),
+            @ApiResponse(responseCode = "400", description = "Cursor inválido")
+    })
+    @GetMapping("/consulta")
+    public ResponseEntity<?> consultar(
+            @Parameter(description = "ID de la categoría") @RequestParam(required = false) Long categoriaId,
+            @Parameter(description = "Precio mínimo") @RequestParam(required = false) BigDecimal precioMin,
+            @Parameter(description = "Precio máximo") @RequestParam(required = false) BigDecimal precioMax,
+            @Parameter(description = "Solo productos con stock") @RequestParam(required = false) Boolean conStock,
+            @Parameter(description = "Solo destacados (true) o no destacados (false)") @RequestParam(required = false) Boolean destacado,
+            @Parameter(description = "Nombre parcial del producto") @RequestParam(required = false) String nombre,
+            @Parameter(description = "Orden de los resultados") @RequestParam(defaultValue = "RECIENTES") FiltroProductos.Orden orden,
+            @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Cantidad de productos por página") @RequestParam(required = false) Integer limite,
+            WebRequest request) {
+        if (versionCatalogo.noModificado(request)) {
+            return null;
+        }
+        FiltroProductos filtro = new FiltroProductos(categoriaId, precioMin, precioMax, conStock, destacado, nombre, orden);
+        try {
+            return ResponseEntity.ok(productoService.consultar(filtro, cursor, limite));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @Operation(summary = "Obtener un producto por ID")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Producto encontrado",
@@ -38,7 +109,11 @@ public class ProductoController {
     })
     @GetMapping("/{id}")
     public ResponseEntity<Producto> obtenerPorId(
-            @Parameter(description = "ID del producto") @PathVariable Long id) {
+            @Parameter(description = "ID del producto") @PathVariable Long id,
+            WebRequest request) {
+        if (versionCatalogo.noModificado(request)) {
+            return null;
+        }
         return productoService.obtenerPorId(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -87,41 +162,112 @@ public class ProductoController {
 
 
     @Operation(summary = "Obtener productos activos")
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = "application/json",
+            array = @ArraySchema(schema = @Schema(implementation = Producto.class))))
     @GetMapping("/activos")
-    public ResponseEntity<List<Producto>> obtenerActivos() {
-        return ResponseEntity.ok(productoService.obtenerActivos());
+    public ResponseEntity<byte[]> obtenerActivos(WebRequest request) {
+        return respuestasCatalogo.responder("activos", request, productoService::obtenerActivos);
+    }
+
+    @Operation(summary = "Obtener productos activos, paginados por cursor")
+    @ApiResponse(responseCode = "400", description = "Cursor inválido")
+    @GetMapping("/activos/pagina")
+    public ResponseEntity<?> obtenerActivosPaginados(
+            @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Cantidad de productos por página") @RequestParam(required = false) Integer limite,
+            WebRequest request) {
+        return paginaFiltrada(new FiltroProductos(), cursor, limite, request);
     }
 
     @Operation(summary = "Obtener productos destacados")
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = "application/json",
+            array = @ArraySchema(schema = @Schema(implementation = Producto.class))))
     @GetMapping("/destacados")
-    public ResponseEntity<List<Producto>> obtenerDestacados() {
-        return ResponseEntity.ok(productoService.obtenerDestacados());
+    public ResponseEntity<byte[]> obtenerDestacados(WebRequest request) {
+        return respuestasCatalogo.responder("destacados", request, productoService::obtenerDestacados);
     }
 
     @Operation(summary = "Obtener productos por categoría")
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = "application/json",
+            array = @ArraySchema(schema = @Schema(implementation = Producto.class))))
     @GetMapping("/categoria/{categoriaId}")
-    public ResponseEntity<List<Producto>> obtenerPorCategoria(
-            @Parameter(description = "ID de la categoría") @PathVariable Long categoriaId) {
-        return ResponseEntity.ok(productoService.obtenerPorCategoria(categoriaId));
+    public ResponseEntity<byte[]> obtenerPorCategoria(
+            @Parameter(description = "ID de la categoría") @PathVariable Long categoriaId,
+            WebRequest request) {
+        return respuestasCatalogo.responder("categoria:" + categoriaId, request,
+                () -> productoService.obtenerPorCategoria(categoriaId));
+    }
+
+    @Operation(summary = "Obtener productos por categoría, paginados por cursor")
+    @ApiResponse(responseCode = "400", description = "Cursor inválido")
+    @GetMapping("/categoria/{categoriaId}/pagina")
+    public ResponseEntity<?> obtenerPorCategoriaPaginados(
+            @Parameter(description = "ID de la categoría") @PathVariable Long categoriaId,
+            @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Cantidad de productos por página") @RequestParam(required = false) Integer limite,
+            WebRequest request) {
+        return paginaFiltrada(new FiltroProductos(categoriaId, null, null, null, null, null, null), cursor, limite, request);
     }
 
     @Operation(summary = "Buscar productos por nombre")
     @GetMapping("/buscar")
     public ResponseEntity<List<Producto>> buscar(
-            @Parameter(description = "Nombre parcial del producto") @RequestParam String nombre) {
+            @Parameter(description = "Nombre parcial del producto") @RequestParam String nombre,
+            WebRequest request) {
+        if (versionCatalogo.noModificado(request)) {
+            return null;
+        }
         return ResponseEntity.ok(productoService.buscarPorNombre(nombre));
     }
 
+    @Operation(summary = "Buscar productos por nombre o descripción, ordenados por relevancia y paginados")
+    @GetMapping("/buscar/pagina")
+    public ResponseEntity<Pagina<Producto>> buscarPaginado(
+            @Parameter(description = "Texto a buscar") @RequestParam String texto,
+            @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Cantidad de productos por página") @RequestParam(required = false) Integer limite,
+            WebRequest request) {
+        if (versionCatalogo.noModificado(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(productoService.buscar(texto, cursor, limite));
+    }
+
     @Operation(summary = "Obtener productos disponibles")
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = "application/json",
+            array = @ArraySchema(schema = @Schema(implementation = Producto.class))))
     @GetMapping("/disponibles")
-    public ResponseEntity<List<Producto>> obtenerDisponibles() {
-        return ResponseEntity.ok(productoService.obtenerDisponibles());
+    public ResponseEntity<byte[]> obtenerDisponibles(WebRequest request) {
+        return respuestasCatalogo.responder("disponibles", request, productoService::obtenerDisponibles);
+    }
+
+    @Operation(summary = "Obtener productos disponibles, paginados por cursor")
+    @ApiResponse(responseCode = "400", description = "Cursor inválido")
+    @GetMapping("/disponibles/pagina")
+    public ResponseEntity<?> obtenerDisponiblesPaginados(
+            @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Cantidad de productos por página") @RequestParam(required = false) Integer limite,
+            WebRequest request) {
+        return paginaFiltrada(new FiltroProductos(null, null, null, true, null, null, null), cursor, limite, request);
     }
 
     @Operation(summary = "Obtener productos recientes")
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = "application/json",
+            array = @ArraySchema(schema = @Schema(implementation = Producto.class))))
     @GetMapping("/recientes")
-    public ResponseEntity<List<Producto>> obtenerRecientes() {
-        return ResponseEntity.ok(productoService.obtenerRecientes());
+    public ResponseEntity<byte[]> obtenerRecientes(WebRequest request) {
+        return respuestasCatalogo.responder("recientes", request, productoService::obtenerRecientes);
+    }
+
+    private ResponseEntity<?> paginaFiltrada(FiltroProductos filtro, String cursor, Integer limite, WebRequest request) {
+        if (versionCatalogo.noModificado(request)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(productoService.obtenerPaginaFiltrada(filtro, cursor, limite));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @Operation(summary = "Marcar un producto como destacado")
@@ -149,4 +295,42 @@ public class ProductoController {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Actualizar stock y precio de varios productos",
+            description = "Aplica todos los cambios en una sola transacción. Stock o precio en null no se modifican; "
+                    + "los ids inexistentes se informan en noEncontrados")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Cambios aplicados",
+                    content = @Content(schema = @Schema(implementation = ResultadoCambios.class))),
+            @ApiResponse(responseCode = "400", description = "Lote vacío, demasiado grande o con valores inválidos")
+    })
+    @PutMapping("/lote")
+    public ResponseEntity<?> actualizarLote(@RequestBody List<CambioProducto> cambios) {
+        try {
+            return ResponseEntity.ok(productoService.actualizarLote(cambios));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Importar productos en lote desde CSV o NDJSON",
+            description = "CSV con encabezado o un objeto JSON por línea. Columnas: id (si se informa, se actualiza "
+                    + "ese producto), nombre, descripcion, precio, stock, imagenUrl, destacado, activo y "
+                    + "categoriaId o categoria (nombre). Devuelve los totales y el error de cada fila rechazada")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Importación procesada",
+                    content = @Content(schema = @Schema(implementation = ResultadoImportacion.class))),
+            @ApiResponse(responseCode = "400", description = "No se pudo leer el archivo")
+    })
+    @PostMapping(value = "/importar", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importar(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String tipo,
+            InputStream cuerpo) {
+        try {
+            boolean csv = MediaType.parseMediaType(tipo).isCompatibleWith(MediaType.parseMediaType("text/csv"));
+            return ResponseEntity.ok(importacionProductos.importar(cuerpo, csv));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.tienda.mascotas.api.Controller;
+
+import com.tienda.mascotas.api.Repository.VentaDiariaRepository;
+import com.tienda.mascotas.api.Service.ReporteVentasService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/reportes/ventas")
+@Tag(name = "Reportes", description = "Reportes de ventas a partir de los acumulados diarios")
+public class ReporteController {
+
+    @Autowired
+    private ReporteVentasService reporteVentasService;
+
+    @Operation(
+            summary = "Ventas por día",
+            description = "Unidades e ingresos de cada día dentro del rango (ambas fechas incluidas)"
+    )
+    @ApiResponse(responseCode = "200", description = "Reporte generado correctamente")
+    @GetMapping("/diarias")
+    public ResponseEntity<List<VentaDiariaRepository.VentasPorDia>> ventasPorDia(
+            @Parameter(description = "Fecha inicio (formato ISO: 2024-09-01)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+
+            @Parameter(description = "Fecha fin (formato ISO: 2024-09-30)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
+
+        return ResponseEntity.ok(reporteVentasService.ventasPorDia(inicio, fin));
+    }
+
+    @Operation(
+            summary = "Ventas por producto",
+            description = "Unidades e ingresos de cada producto dentro del rango, de mayor a menor ingreso"
+    )
+    @ApiResponse(responseCode = "200", description = "Reporte generado correctamente")
+    @GetMapping("/productos")
+    public ResponseEntity<List<VentaDiariaRepository.VentasPorProducto>> ventasPorProducto(
+            @Parameter(description = "Fecha inicio (formato ISO: 2024-09-01)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+
+            @Parameter(description = "Fecha fin (formato ISO: 2024-09-30)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
+
+        return ResponseEntity.ok(reporteVentasService.ventasPorProducto(inicio, fin));
+    }
+
+    @Operation(
+            summary = "Ventas por categoría",
+            description = "Unidades e ingresos de cada categoría dentro del rango, de mayor a menor ingreso"
+    )
+    @ApiResponse(responseCode = "200", description = "Reporte generado correctamente")
+    @GetMapping("/categorias")
+    public ResponseEntity<List<VentaDiariaRepository.VentasPorCategoria>> ventasPorCategoria(
+            @Parameter(description = "Fecha inicio (formato ISO: 2024-09-01)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+
+            @Parameter(description = "Fecha fin (formato ISO: 2024-09-30)")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
+
+        return ResponseEntity.ok(reporteVentasService.ventasPorCategoria(inicio, fin));
+    }
+}
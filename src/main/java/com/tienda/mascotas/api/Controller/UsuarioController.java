@@ -1,7 +1,10 @@
 package com.tienda.mascotas.api.Controller;
 
+import com.tienda.mascotas.api.Model.Pagina;
 import com.tienda.mascotas.api.Model.Usuario;
+import com.tienda.mascotas.api.Service.EmisorTokens;
 import com.tienda.mascotas.api.Service.UsuarioService;
+import com.tienda.mascotas.api.Service.VerificadorContrasenas;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -10,11 +13,15 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/usuarios")
@@ -25,12 +32,23 @@ public class UsuarioController {
     @Autowired
     private UsuarioService usuarioService;
 
+    @Autowired
+    private EmisorTokens emisorTokens;
+
     @Operation(summary = "Obtener todos los usuarios")
     @GetMapping
     public ResponseEntity<List<Usuario>> obtenerTodos() {
         return ResponseEntity.ok(usuarioService.obtenerTodos());
     }
 
+    @Operation(summary = "Obtener usuarios paginados por cursor")
+    @GetMapping("/pagina")
+    public ResponseEntity<Pagina<Usuario>> obtenerPagina(
+            @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Cantidad de usuarios por página") @RequestParam(required = false) Integer limite) {
+        return ResponseEntity.ok(usuarioService.obtenerPagina(cursor, limite));
+    }
+
     @Operation(summary = "Obtener usuario por ID")
     @GetMapping("/{id}")
     public ResponseEntity<Usuario> obtenerPorId(
@@ -55,6 +73,8 @@ public class UsuarioController {
         try {
             Usuario nuevoUsuario = usuarioService.crear(usuario);
             return ResponseEntity.status(HttpStatus.CREATED).body(nuevoUsuario);
+        } catch (RejectedExecutionException e) {
+            return servidorOcupado();
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -68,6 +88,8 @@ public class UsuarioController {
         try {
             Usuario usuarioActualizado = usuarioService.actualizar(id, usuario);
             return ResponseEntity.ok(usuarioActualizado);
+        } catch (RejectedExecutionException e) {
+            return servidorOcupado();
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -99,6 +121,15 @@ public class UsuarioController {
         return ResponseEntity.ok(usuarioService.buscarPorNombre(nombre));
     }
 
+    @Operation(summary = "Buscar usuarios por nombre o apellido, ordenados por relevancia y paginados")
+    @GetMapping("/buscar/pagina")
+    public ResponseEntity<Pagina<Usuario>> buscarPaginado(
+            @Parameter(description = "Texto a buscar") @RequestParam String texto,
+            @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Cantidad de usuarios por página") @RequestParam(required = false) Integer limite) {
+        return ResponseEntity.ok(usuarioService.buscar(texto, cursor, limite));
+    }
+
     @Operation(summary = "Cambiar role de un usuario")
     @PutMapping("/{id}/role")
     public ResponseEntity<?> cambiarRole(
@@ -113,14 +144,29 @@ public class UsuarioController {
     }
 
     @Operation(summary = "Login de usuario")
+    @ApiResponse(responseCode = "200", description = "Credenciales válidas; el token JWT va en la cabecera Authorization (Bearer)")
+    @ApiResponse(responseCode = "401", description = "Credenciales inválidas")
+    @ApiResponse(responseCode = "503", description = "Demasiados logins en curso, reintentar más tarde")
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest request) {
-        boolean valido = usuarioService.validarCredenciales(request.getEmail(), request.getPassword());
-        if (valido) {
-            Usuario usuario = usuarioService.obtenerPorEmail(request.getEmail()).get();
-            return ResponseEntity.ok(usuario);
-        }
-        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Credenciales inválidas");
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest request) {
+        // El hilo de Tomcat queda libre mientras BCrypt corre en su propio pool
+        return usuarioService.autenticar(request.getEmail(), request.getPassword())
+                .<ResponseEntity<?>>thenApply(usuario -> usuario.<ResponseEntity<?>>map(u -> ResponseEntity.ok()
+                                .header(HttpHeaders.AUTHORIZATION, "Bearer " + emisorTokens.emitir(u))
+                                .body(u))
+                        .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Credenciales inválidas")))
+                .exceptionally(error -> {
+                    if (!VerificadorContrasenas.esRechazo(error)) {
+                        throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+                    }
+                    return servidorOcupado();
+                });
+    }
+
+    private ResponseEntity<?> servidorOcupado() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Hay demasiados inicios de sesión en curso, intente nuevamente");
     }
 
     static class LoginRequest {
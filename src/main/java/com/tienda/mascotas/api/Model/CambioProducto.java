@@ -0,0 +1,17 @@
+package com.tienda.mascotas.api.Model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Un elemento de la actualización masiva; stock o precio en null quedan como están
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CambioProducto {
+    private Long id;
+    private Integer stock;
+    private BigDecimal precio;
+}
@@ -0,0 +1,20 @@
+package com.tienda.mascotas.api.Model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConsultaProductos {
+    private List<Producto> contenido;
+    // Cursor opaco para pedir la página siguiente; null en la última página
+    private String siguienteCursor;
+    private int limite;
+    // Solo en la primera página (sin cursor); en las siguientes quedan en null
+    private List<Faceta> categorias;
+    private List<Faceta> rangosPrecio;
+}
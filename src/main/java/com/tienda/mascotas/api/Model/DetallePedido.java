@@ -5,6 +5,7 @@ import jakarta.persistence.Table;
 import jakarta.persistence.Id;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Column;
@@ -26,8 +27,10 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 public class DetallePedido {
 
+    // Ids por secuencia (pooled) para que las líneas se inserten en lote
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "detalle_pedido_seq_gen")
+    @SequenceGenerator(name = "detalle_pedido_seq_gen", sequenceName = "detalle_pedido_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -0,0 +1,15 @@
+package com.tienda.mascotas.api.Model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Un valor posible de un filtro y cuántos productos quedarían al elegirlo
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Faceta {
+    private String clave;
+    private String nombre;
+    private long cantidad;
+}
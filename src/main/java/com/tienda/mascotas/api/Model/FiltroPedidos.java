@@ -0,0 +1,18 @@
+package com.tienda.mascotas.api.Model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Criterios de los listados paginados de pedidos; los campos null no filtran
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FiltroPedidos {
+    private Long usuarioId;
+    private Pedido.EstadoPedido estado;
+    private LocalDateTime inicio;
+    private LocalDateTime fin;
+}
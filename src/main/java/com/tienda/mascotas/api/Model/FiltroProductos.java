@@ -0,0 +1,25 @@
+package com.tienda.mascotas.api.Model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Criterios de la consulta facetada de productos; los campos null no filtran
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FiltroProductos {
+    private Long categoriaId;
+    private BigDecimal precioMin;
+    private BigDecimal precioMax;
+    private Boolean conStock;
+    private Boolean destacado;
+    private String nombre;
+    private Orden orden = Orden.RECIENTES;
+
+    public enum Orden {
+        RECIENTES, PRECIO_ASC, PRECIO_DESC, NOMBRE
+    }
+}
@@ -0,0 +1,17 @@
+package com.tienda.mascotas.api.Model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Pagina<T> {
+    private List<T> contenido;
+    // Cursor opaco para pedir la página siguiente; null en la última página
+    private String siguienteCursor;
+    private int limite;
+}
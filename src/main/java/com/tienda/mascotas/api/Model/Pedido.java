@@ -5,6 +5,7 @@ import jakarta.persistence.Table;
 import jakarta.persistence.Id;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Column;
@@ -12,24 +13,43 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
 @Table(name = "pedidos")
+// Todo lo que se serializa al listar pedidos, cargado en una sola consulta
+@NamedEntityGraph(
+        name = "Pedido.completo",
+        attributeNodes = {
+                @NamedAttributeNode("usuario"),
+                @NamedAttributeNode(value = "detalles", subgraph = "detalles")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "detalles", attributeNodes = @NamedAttributeNode(value = "producto", subgraph = "producto")),
+                @NamedSubgraph(name = "producto", attributeNodes = @NamedAttributeNode("categoria"))
+        }
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Pedido {
 
+    // Secuencia con optimizador pooled: permite agrupar los INSERT en lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pedido_seq_gen")
+    @SequenceGenerator(name = "pedido_seq_gen", sequenceName = "pedidos_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -54,6 +74,16 @@ public class Pedido {
 
     private String notas;
 
+    // true mientras el descuento de stock solo exista en el inventario en memoria
+    @Column(name = "stock_pendiente", nullable = false)
+    @JsonIgnore
+    private Boolean stockPendiente = false;
+
+    // true cuando sus líneas ya están sumadas en ventas_diarias
+    @Column(name = "contabilizado", nullable = false)
+    @JsonIgnore
+    private Boolean contabilizado = false;
+
     @OneToMany(mappedBy = "pedido", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<DetallePedido> detalles;
 
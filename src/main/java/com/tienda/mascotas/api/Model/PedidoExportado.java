@@ -0,0 +1,24 @@
+package com.tienda.mascotas.api.Model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Fila plana de la exportación de pedidos (sin grafo de entidades)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PedidoExportado {
+    private Long id;
+    private LocalDateTime fechaPedido;
+    private Long usuarioId;
+    private String email;
+    private String estado;
+    private BigDecimal total;
+    private String metodoPago;
+    private String direccionEnvio;
+    private Long unidades;
+}
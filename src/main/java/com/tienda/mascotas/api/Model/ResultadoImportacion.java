@@ -0,0 +1,27 @@
+package com.tienda.mascotas.api.Model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ResultadoImportacion {
+    private int procesadas;
+    private int creadas;
+    private int actualizadas;
+    private int conError;
+    // Se detallan como mucho los primeros errores; conError tiene el total
+    private List<ErrorFila> errores = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ErrorFila {
+        private long fila;
+        private String mensaje;
+    }
+}
@@ -0,0 +1,20 @@
+package com.tienda.mascotas.api.Model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Fila de "mis pedidos": sin detalles ni productos, que se piden aparte con GET /api/pedidos/{id}
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumenPedido {
+    private Long id;
+    private LocalDateTime fechaPedido;
+    private BigDecimal total;
+    private Pedido.EstadoPedido estado;
+    private Long unidades;
+}
@@ -0,0 +1,59 @@
+package com.tienda.mascotas.api.Model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Seguimiento de un pedido recibido en modo asíncrono (la escribe el worker y la lee el cliente)
+@Getter
+public class SolicitudPedido {
+
+    private final String id = UUID.randomUUID().toString();
+
+    @JsonIgnore
+    private final Pedido pedido;
+
+    private final LocalDateTime fechaRecepcion = LocalDateTime.now();
+
+    private volatile EstadoSolicitud estado = EstadoSolicitud.EN_COLA;
+
+    private volatile Long pedidoId;
+
+    private volatile String mensaje;
+
+    private volatile LocalDateTime fechaFinalizacion;
+
+    public SolicitudPedido(Pedido pedido) {
+        this.pedido = pedido;
+    }
+
+    public void procesando() {
+        this.estado = EstadoSolicitud.PROCESANDO;
+    }
+
+    public void completar(Long pedidoId) {
+        this.pedidoId = pedidoId;
+        this.fechaFinalizacion = LocalDateTime.now();
+        this.estado = EstadoSolicitud.COMPLETADO;
+    }
+
+    public void rechazar(String mensaje) {
+        this.mensaje = mensaje;
+        this.fechaFinalizacion = LocalDateTime.now();
+        this.estado = EstadoSolicitud.RECHAZADO;
+    }
+
+    @JsonIgnore
+    public boolean isFinalizada() {
+        return estado == EstadoSolicitud.COMPLETADO || estado == EstadoSolicitud.RECHAZADO;
+    }
+
+    public enum EstadoSolicitud {
+        EN_COLA,
+        PROCESANDO,
+        COMPLETADO,
+        RECHAZADO
+    }
+}
@@ -0,0 +1,47 @@
+package com.tienda.mascotas.api.Model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.Id;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Column;
+import jakarta.persistence.UniqueConstraint;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Acumulado de ventas por día y producto; los reportes leen solo esta tabla
+@Entity
+@Table(
+        name = "ventas_diarias",
+        uniqueConstraints = @UniqueConstraint(name = "uk_ventas_diarias_fecha_producto", columnNames = {"fecha", "producto_id"})
+)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VentaDiaria {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate fecha;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(name = "categoria_id")
+    private Long categoriaId;
+
+    @Column(nullable = false)
+    private Long unidades;
+
+    @Column(nullable = false)
+    private BigDecimal ingresos;
+}
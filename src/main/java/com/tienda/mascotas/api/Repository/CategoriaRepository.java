@@ -2,6 +2,7 @@ package com.tienda.mascotas.api.Repository;
 
 import com.tienda.mascotas.api.Model.Categoria;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
@@ -14,4 +15,8 @@ public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
     List<Categoria> findByActivaTrue();
 
     Boolean existsByNombre(String nombre);
+
+    // El nombre tiene que llegar ya normalizado: sin espacios en los extremos y en minúsculas
+    @Query("SELECT c FROM Categoria c WHERE LOWER(TRIM(c.nombre)) = :nombre ORDER BY c.id")
+    List<Categoria> findByNombreNormalizado(String nombre);
 }
\ No newline at end of file
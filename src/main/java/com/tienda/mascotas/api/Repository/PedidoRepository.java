@@ -1,26 +1,77 @@
 package com.tienda.mascotas.api.Repository;
 
 import com.tienda.mascotas.api.Model.Pedido;
+import com.tienda.mascotas.api.Model.ResumenPedido;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface PedidoRepository extends JpaRepository<Pedido, Long> {
+public interface PedidoRepository extends JpaRepository<Pedido, Long>, PedidoRepositoryCustom {
 
+    @Override
+    @EntityGraph("Pedido.completo")
+    Optional<Pedido> findById(Long id);
+
+    @EntityGraph("Pedido.completo")
     List<Pedido> findByUsuarioId(Long usuarioId);
 
+    @EntityGraph("Pedido.completo")
     List<Pedido> findByUsuarioIdOrderByFechaPedidoDesc(Long usuarioId);
 
+    @Query("SELECT new com.tienda.mascotas.api.Model.ResumenPedido(p.id, p.fechaPedido, p.total, p.estado, "
+            + "COALESCE(SUM(d.cantidad), 0L)) "
+            + "FROM Pedido p LEFT JOIN p.detalles d WHERE p.usuario.id = :usuarioId "
+            + "GROUP BY p.id, p.fechaPedido, p.total, p.estado ORDER BY p.fechaPedido DESC, p.id DESC")
+    List<ResumenPedido> findResumenesPorUsuario(Long usuarioId);
+
+    @EntityGraph("Pedido.completo")
     List<Pedido> findByEstado(Pedido.EstadoPedido estado);
 
+    @EntityGraph("Pedido.completo")
     List<Pedido> findByFechaPedidoBetween(LocalDateTime inicio, LocalDateTime fin);
 
+    @EntityGraph("Pedido.completo")
     @Query("SELECT p FROM Pedido p ORDER BY p.fechaPedido DESC")
     List<Pedido> findAllOrderByFechaPedidoDesc();
 
+    // Las páginas se resuelven en dos pasos (ids con LIMIT en findIdsPagina y luego el grafo completo)
+    // porque un fetch de colección junto con LIMIT obliga a Hibernate a paginar en memoria
+    @EntityGraph("Pedido.completo")
+    @Query("SELECT p FROM Pedido p WHERE p.id IN :ids ORDER BY p.fechaPedido DESC, p.id DESC")
+    List<Pedido> findCompletosByIdIn(Collection<Long> ids);
+
     @Query("SELECT COUNT(p) FROM Pedido p WHERE p.estado = :estado")
     Long countByEstado(Pedido.EstadoPedido estado);
+
+    @Query("SELECT p.estado, COUNT(p) FROM Pedido p GROUP BY p.estado")
+    List<Object[]> contarAgrupadoPorEstado();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Pedido p WHERE p.id = :id")
+    Optional<Pedido> findByIdParaActualizar(Long id);
+
+    @Query(value = "SELECT id FROM pedidos WHERE stock_pendiente = true ORDER BY id LIMIT :limite FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> findIdsConStockPendiente(int limite);
+
+    @Modifying
+    @Query("UPDATE Pedido p SET p.stockPendiente = false WHERE p.id IN :ids")
+    int marcarStockAplicado(Collection<Long> ids);
+
+    @Query(value = "SELECT id FROM pedidos WHERE contabilizado IS NOT TRUE ORDER BY id LIMIT :limite FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> findIdsSinContabilizar(int limite);
+
+    @Modifying
+    @Query("UPDATE Pedido p SET p.contabilizado = true WHERE p.id IN :ids")
+    int marcarContabilizados(Collection<Long> ids);
 }
\ No newline at end of file
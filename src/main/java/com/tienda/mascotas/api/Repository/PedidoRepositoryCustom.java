@@ -0,0 +1,18 @@
+package com.tienda.mascotas.api.Repository;
+
+import com.tienda.mascotas.api.Model.FiltroPedidos;
+import com.tienda.mascotas.api.Model.PedidoExportado;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface PedidoRepositoryCustom {
+
+    // Recorre los pedidos con un cursor de solo avance, fila por fila, sin acumularlos
+    void recorrerPorFechas(LocalDateTime inicio, LocalDateTime fin, Consumer<PedidoExportado> consumidor);
+
+    // Ids de una página en orden (fechaPedido DESC, id DESC); fecha/id null para la primera.
+    // Solo se agregan las condiciones presentes, así cada combinación usa su índice.
+    List<Long> findIdsPagina(FiltroPedidos filtro, LocalDateTime fecha, Long id, int filas);
+}
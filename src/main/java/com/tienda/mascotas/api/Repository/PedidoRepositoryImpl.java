@@ -0,0 +1,94 @@
+package com.tienda.mascotas.api.Repository;
+
+import com.tienda.mascotas.api.Model.FiltroPedidos;
+import com.tienda.mascotas.api.Model.PedidoExportado;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public class PedidoRepositoryImpl implements PedidoRepositoryCustom {
+
+    private static final int FILAS_POR_VIAJE = 500;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void recorrerPorFechas(LocalDateTime inicio, LocalDateTime fin, Consumer<PedidoExportado> consumidor) {
+        // PostgreSQL solo usa cursor (fetch size) dentro de una transacción
+        JdbcTemplate cursor = new JdbcTemplate(jdbcTemplate.getDataSource());
+        cursor.setFetchSize(FILAS_POR_VIAJE);
+
+        cursor.query(
+                "SELECT p.id, p.fecha_pedido, p.usuario_id, u.email, p.estado, p.total, p.metodo_pago, p.direccion_envio, "
+                        + "(SELECT COALESCE(SUM(d.cantidad), 0) FROM detalle_pedido d WHERE d.pedido_id = p.id) AS unidades "
+                        + "FROM pedidos p JOIN usuarios u ON u.id = p.usuario_id "
+                        + "WHERE p.fecha_pedido BETWEEN ? AND ? "
+                        + "ORDER BY p.fecha_pedido, p.id",
+                (RowCallbackHandler) rs -> consumidor.accept(new PedidoExportado(
+                        rs.getLong("id"),
+                        rs.getTimestamp("fecha_pedido").toLocalDateTime(),
+                        rs.getLong("usuario_id"),
+                        rs.getString("email"),
+                        rs.getString("estado"),
+                        rs.getBigDecimal("total"),
+                        rs.getString("metodo_pago"),
+                        rs.getString("direccion_envio"),
+                        rs.getLong("unidades")
+                )),
+                Timestamp.valueOf(inicio),
+                Timestamp.valueOf(fin)
+        );
+    }
+
+    @Override
+    public List<Long> findIdsPagina(FiltroPedidos filtro, LocalDateTime fecha, Long id, int filas) {
+        List<String> condiciones = new ArrayList<>();
+        Map<String, Object> parametros = new HashMap<>();
+        if (filtro.getUsuarioId() != null) {
+            condiciones.add("p.usuario.id = :usuarioId");
+            parametros.put("usuarioId", filtro.getUsuarioId());
+        }
+        if (filtro.getEstado() != null) {
+            condiciones.add("p.estado = :estado");
+            parametros.put("estado", filtro.getEstado());
+        }
+        if (filtro.getInicio() != null) {
+            condiciones.add("p.fechaPedido >= :inicio");
+            parametros.put("inicio", filtro.getInicio());
+        }
+        if (filtro.getFin() != null) {
+            condiciones.add("p.fechaPedido <= :fin");
+            parametros.put("fin", filtro.getFin());
+        }
+        if (fecha != null) {
+            condiciones.add("(p.fechaPedido < :fecha OR (p.fechaPedido = :fecha AND p.id < :id))");
+            parametros.put("fecha", fecha);
+            parametros.put("id", id);
+        }
+
+        StringBuilder jpql = new StringBuilder("SELECT p.id FROM Pedido p");
+        if (!condiciones.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", condiciones));
+        }
+        jpql.append(" ORDER BY p.fechaPedido DESC, p.id DESC");
+
+        TypedQuery<Long> consulta = entityManager.createQuery(jpql.toString(), Long.class);
+        parametros.forEach(consulta::setParameter);
+        return consulta.setMaxResults(filas).getResultList();
+    }
+}
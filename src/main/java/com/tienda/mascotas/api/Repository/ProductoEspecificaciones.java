@@ -0,0 +1,94 @@
+package com.tienda.mascotas.api.Repository;
+
+import com.tienda.mascotas.api.Model.FiltroProductos;
+import com.tienda.mascotas.api.Model.Producto;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Criterios dinámicos de la consulta facetada de productos
+public final class ProductoEspecificaciones {
+
+    private ProductoEspecificaciones() {
+    }
+
+    // Cada faceta se cuenta sin su propio filtro, para mostrar cuántos habría al cambiarlo
+    public static Specification<Producto> filtrar(FiltroProductos filtro, boolean porCategoria, boolean porPrecio) {
+        return (root, query, cb) -> {
+            List<Predicate> condiciones = new ArrayList<>();
+            condiciones.add(cb.isTrue(root.get("activo")));
+            if (porCategoria && filtro.getCategoriaId() != null) {
+                condiciones.add(cb.equal(root.get("categoria").get("id"), filtro.getCategoriaId()));
+            }
+            if (porPrecio && filtro.getPrecioMin() != null) {
+                condiciones.add(cb.greaterThanOrEqualTo(root.get("precio"), filtro.getPrecioMin()));
+            }
+            if (porPrecio && filtro.getPrecioMax() != null) {
+                condiciones.add(cb.lessThanOrEqualTo(root.get("precio"), filtro.getPrecioMax()));
+            }
+            if (Boolean.TRUE.equals(filtro.getConStock())) {
+                condiciones.add(cb.greaterThan(root.get("stock"), 0));
+            }
+            if (filtro.getDestacado() != null) {
+                condiciones.add(cb.equal(root.get("destacado"), filtro.getDestacado()));
+            }
+            if (filtro.getNombre() != null && !filtro.getNombre().isBlank()) {
+                String patron = "%" + escaparLike(filtro.getNombre().trim().toLowerCase(Locale.ROOT)) + "%";
+                condiciones.add(cb.like(cb.lower(root.get("nombre")), patron, '\\'));
+            }
+            return cb.and(condiciones.toArray(new Predicate[0]));
+        };
+    }
+
+    // Filas posteriores a la última entregada, según el orden pedido (el id desempata)
+    public static Specification<Producto> despuesDe(FiltroProductos.Orden orden, Long id, String valor) {
+        return (root, query, cb) -> {
+            Path<Long> idProducto = root.get("id");
+            switch (orden) {
+                case PRECIO_ASC: {
+                    Path<BigDecimal> precio = root.get("precio");
+                    BigDecimal ultimo = new BigDecimal(valor);
+                    return cb.or(cb.greaterThan(precio, ultimo),
+                            cb.and(cb.equal(precio, ultimo), cb.greaterThan(idProducto, id)));
+                }
+                case PRECIO_DESC: {
+                    Path<BigDecimal> precio = root.get("precio");
+                    BigDecimal ultimo = new BigDecimal(valor);
+                    return cb.or(cb.lessThan(precio, ultimo),
+                            cb.and(cb.equal(precio, ultimo), cb.lessThan(idProducto, id)));
+                }
+                case NOMBRE: {
+                    Path<String> nombre = root.get("nombre");
+                    return cb.or(cb.greaterThan(nombre, valor),
+                            cb.and(cb.equal(nombre, valor), cb.greaterThan(idProducto, id)));
+                }
+                default:
+                    // Los ids crecen con cada alta: "recientes" es id descendente
+                    return cb.lessThan(idProducto, id);
+            }
+        };
+    }
+
+    public static Sort orden(FiltroProductos.Orden orden) {
+        switch (orden) {
+            case PRECIO_ASC:
+                return Sort.by(Sort.Direction.ASC, "precio", "id");
+            case PRECIO_DESC:
+                return Sort.by(Sort.Direction.DESC, "precio", "id");
+            case NOMBRE:
+                return Sort.by(Sort.Direction.ASC, "nombre", "id");
+            default:
+                return Sort.by(Sort.Direction.DESC, "id");
+        }
+    }
+
+    private static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -1,15 +1,24 @@
 package com.tienda.mascotas.api.Repository;
 import com.tienda.mascotas.api.Model.Producto;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
+public interface ProductoRepository extends JpaRepository<Producto, Long>, JpaSpecificationExecutor<Producto>,
+        ProductoRepositoryCustom {
 
     List<Producto> findByActivoTrue();
 
+    List<Producto> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
     List<Producto> findByDestacadoTrueAndActivoTrue();
 
     List<Producto> findByCategoriaIdAndActivoTrue(Long categoriaId);
@@ -21,4 +30,21 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
 
     @Query("SELECT p FROM Producto p WHERE p.activo = true ORDER BY p.fechaCreacion DESC")
     List<Producto> findProductosRecientes();
+
+    // Solo los textos, para construir el índice de búsqueda sin cargar entidades
+    @Query("SELECT p.id, p.nombre, p.descripcion FROM Producto p WHERE p.activo = true")
+    List<Object[]> findTextosActivos();
+
+    @Query("SELECT p.id, p.nombre, p.descripcion, p.activo FROM Producto p WHERE p.id > :id")
+    List<Object[]> findTextosDesde(Long id);
+
+    @Query("SELECT p.id, p.nombre, p.descripcion, p.activo FROM Producto p WHERE p.id IN :ids")
+    List<Object[]> findTextosPorIds(Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Producto p WHERE p.id = :id")
+    Optional<Producto> findByIdParaActualizar(Long id);
+
+    @Query("SELECT p FROM Producto p JOIN FETCH p.categoria WHERE p.id IN :ids")
+    List<Producto> findAllByIdIn(Collection<Long> ids);
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.tienda.mascotas.api.Repository;
+
+import com.tienda.mascotas.api.Model.CambioProducto;
+import com.tienda.mascotas.api.Model.Faceta;
+import com.tienda.mascotas.api.Model.Producto;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface ProductoRepositoryCustom {
+
+    // Descuenta stock solo donde alcanza; devuelve los ids que no tenían suficiente
+    List<Long> descontarStock(Map<Long, Integer> cantidades);
+
+    void devolverStock(Map<Long, Integer> cantidades);
+
+    // Stock en base menos lo reservado por pedidos cuyo descuento aún no se volcó
+    int stockDisponible(Long productoId);
+
+    void aplicarStockPendiente(Collection<Long> pedidoIds);
+
+    // Alta y modificación masivas (importación) en un solo lote JDBC cada una;
+    // devuelven las filas afectadas por producto, en el mismo orden
+    int[] insertarLote(List<Producto> productos);
+
+    int[] actualizarLote(List<Producto> productos);
+
+    long idMaximo();
+
+    // Stock actual por id, con las filas bloqueadas hasta que termine la transacción
+    Map<Long, Integer> bloquearStock(Collection<Long> ids);
+
+    // Stock y precio de muchos productos en un lote; devuelve los ids que no existen
+    List<Long> aplicarCambios(List<CambioProducto> cambios);
+
+    List<Faceta> contarPorCategoria(Specification<Producto> filtro);
+
+    // Una cuenta por rango: [.., l0), [l0, l1), ..., [ln, ..); todas en una sola consulta
+    long[] contarPorRangoPrecio(Specification<Producto> filtro, List<BigDecimal> limites);
+}
@@ -0,0 +1,281 @@
+package com.tienda.mascotas.api.Repository;
+
+import com.tienda.mascotas.api.Model.CambioProducto;
+import com.tienda.mascotas.api.Model.Faceta;
+import com.tienda.mascotas.api.Model.Producto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ProductoRepositoryImpl implements ProductoRepositoryCustom {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> descontarStock(Map<Long, Integer> cantidades) {
+        if (cantidades.isEmpty()) {
+            return List.of();
+        }
+        // Orden por id para que dos pedidos concurrentes bloqueen filas en el mismo orden
+        List<Map.Entry<Long, Integer>> entradas = new ArrayList<>(new TreeMap<>(cantidades).entrySet());
+
+        int[][] filas = jdbcTemplate.batchUpdate(
+                "UPDATE productos SET stock = stock - ? WHERE id = ? AND stock >= ?",
+                entradas,
+                entradas.size(),
+                (ps, entrada) -> {
+                    ps.setInt(1, entrada.getValue());
+                    ps.setLong(2, entrada.getKey());
+                    ps.setInt(3, entrada.getValue());
+                }
+        );
+
+        List<Long> sinStock = new ArrayList<>();
+        for (int i = 0; i < entradas.size(); i++) {
+            int actualizadas = filas[0][i];
+            if (actualizadas == 0) {
+                sinStock.add(entradas.get(i).getKey());
+            }
+        }
+        return sinStock;
+    }
+
+    @Override
+    public void devolverStock(Map<Long, Integer> cantidades) {
+        if (cantidades.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Integer>> entradas = new ArrayList<>(new TreeMap<>(cantidades).entrySet());
+
+        jdbcTemplate.batchUpdate(
+                "UPDATE productos SET stock = stock + ? WHERE id = ?",
+                entradas,
+                entradas.size(),
+                (ps, entrada) -> {
+                    ps.setInt(1, entrada.getValue());
+                    ps.setLong(2, entrada.getKey());
+                }
+        );
+    }
+
+    @Override
+    public int stockDisponible(Long productoId) {
+        List<Integer> stock = jdbcTemplate.queryForList(
+                "SELECT p.stock - COALESCE((SELECT SUM(d.cantidad) FROM detalle_pedido d "
+                        + "JOIN pedidos pe ON pe.id = d.pedido_id "
+                        + "WHERE pe.stock_pendiente = true AND d.producto_id = p.id), 0) "
+                        + "FROM productos p WHERE p.id = ?",
+                Integer.class,
+                productoId
+        );
+        return stock.isEmpty() ? 0 : stock.get(0);
+    }
+
+    @Override
+    public void aplicarStockPendiente(Collection<Long> pedidoIds) {
+        if (pedidoIds.isEmpty()) {
+            return;
+        }
+        // SQL estándar (sin UPDATE ... FROM) para que también corra en la base de las pruebas
+        namedParameterJdbcTemplate.update(
+                "UPDATE productos SET stock = stock - (SELECT SUM(d.cantidad) FROM detalle_pedido d "
+                        + "WHERE d.pedido_id IN (:ids) AND d.producto_id = productos.id) "
+                        + "WHERE id IN (SELECT producto_id FROM detalle_pedido WHERE pedido_id IN (:ids))",
+                Map.of("ids", pedidoIds)
+        );
+    }
+
+    @Override
+    public int[] insertarLote(List<Producto> productos) {
+        if (productos.isEmpty()) {
+            return new int[0];
+        }
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        int[][] filas = jdbcTemplate.batchUpdate(
+                "INSERT INTO productos (nombre, descripcion, precio, stock, imagen_url, destacado, activo, categoria_id, fecha_creacion) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                productos,
+                productos.size(),
+                (ps, producto) -> {
+                    ps.setString(1, producto.getNombre());
+                    ps.setString(2, producto.getDescripcion());
+                    ps.setBigDecimal(3, producto.getPrecio());
+                    ps.setInt(4, producto.getStock());
+                    ps.setString(5, producto.getImagenUrl());
+                    ps.setBoolean(6, producto.getDestacado());
+                    ps.setBoolean(7, producto.getActivo());
+                    ps.setLong(8, producto.getCategoria().getId());
+                    ps.setTimestamp(9, ahora);
+                }
+        );
+        return filas[0];
+    }
+
+    @Override
+    public int[] actualizarLote(List<Producto> productos) {
+        if (productos.isEmpty()) {
+            return new int[0];
+        }
+        int[][] filas = jdbcTemplate.batchUpdate(
+                "UPDATE productos SET nombre = ?, descripcion = ?, precio = ?, stock = ?, imagen_url = ?, "
+                        + "destacado = ?, activo = ?, categoria_id = ? WHERE id = ?",
+                productos,
+                productos.size(),
+                (ps, producto) -> {
+                    ps.setString(1, producto.getNombre());
+                    ps.setString(2, producto.getDescripcion());
+                    ps.setBigDecimal(3, producto.getPrecio());
+                    ps.setInt(4, producto.getStock());
+                    ps.setString(5, producto.getImagenUrl());
+                    ps.setBoolean(6, producto.getDestacado());
+                    ps.setBoolean(7, producto.getActivo());
+                    ps.setLong(8, producto.getCategoria().getId());
+                    ps.setLong(9, producto.getId());
+                }
+        );
+        return filas[0];
+    }
+
+    @Override
+    public long idMaximo() {
+        Long maximo = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM productos", Long.class);
+        return maximo == null ? 0 : maximo;
+    }
+
+    @Override
+    public Map<Long, Integer> bloquearStock(Collection<Long> ids) {
+        Map<Long, Integer> stock = new HashMap<>();
+        if (ids.isEmpty()) {
+            return stock;
+        }
+        // Mismo orden de bloqueo que el descuento de stock de los pedidos
+        namedParameterJdbcTemplate.query(
+                "SELECT id, stock FROM productos WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+                Map.of("ids", ids),
+                fila -> {
+                    stock.put(fila.getLong("id"), fila.getInt("stock"));
+                }
+        );
+        return stock;
+    }
+
+    @Override
+    public List<Long> aplicarCambios(List<CambioProducto> cambios) {
+        if (cambios.isEmpty()) {
+            return List.of();
+        }
+        // Mismo orden de bloqueo que el descuento de stock de los pedidos
+        List<CambioProducto> ordenados = new ArrayList<>(cambios);
+        ordenados.sort(Comparator.comparing(CambioProducto::getId));
+
+        int[][] filas = jdbcTemplate.batchUpdate(
+                "UPDATE productos SET stock = COALESCE(?, stock), precio = COALESCE(?, precio) WHERE id = ?",
+                ordenados,
+                ordenados.size(),
+                (ps, cambio) -> {
+                    // Nulos con tipo: PostgreSQL no puede inferirlo dentro del COALESCE
+                    if (cambio.getStock() == null) {
+                        ps.setNull(1, Types.INTEGER);
+                    } else {
+                        ps.setInt(1, cambio.getStock());
+                    }
+                    if (cambio.getPrecio() == null) {
+                        ps.setNull(2, Types.NUMERIC);
+                    } else {
+                        ps.setBigDecimal(2, cambio.getPrecio());
+                    }
+                    ps.setLong(3, cambio.getId());
+                }
+        );
+
+        List<Long> noEncontrados = new ArrayList<>();
+        for (int i = 0; i < ordenados.size(); i++) {
+            if (filas[0][i] == 0) {
+                noEncontrados.add(ordenados.get(i).getId());
+            }
+        }
+        return noEncontrados;
+    }
+
+    @Override
+    public List<Faceta> contarPorCategoria(Specification<Producto> filtro) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Producto> root = query.from(Producto.class);
+        Path<Long> categoriaId = root.get("categoria").get("id");
+        Path<String> categoriaNombre = root.get("categoria").get("nombre");
+        Expression<Long> cantidad = cb.count(root);
+
+        query.multiselect(categoriaId, categoriaNombre, cantidad)
+                .where(filtro.toPredicate(root, query, cb))
+                .groupBy(categoriaId, categoriaNombre)
+                .orderBy(cb.desc(cantidad));
+
+        List<Faceta> facetas = new ArrayList<>();
+        for (Tuple fila : entityManager.createQuery(query).getResultList()) {
+            facetas.add(new Faceta(String.valueOf(fila.get(0)), fila.get(1, String.class), fila.get(2, Long.class)));
+        }
+        return facetas;
+    }
+
+    @Override
+    public long[] contarPorRangoPrecio(Specification<Producto> filtro, List<BigDecimal> limites) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Producto> root = query.from(Producto.class);
+        Path<BigDecimal> precio = root.get("precio");
+
+        // SUM(CASE ...) por rango en lugar de GROUP BY CASE: no depende de comparar parámetros entre cláusulas
+        List<Selection<?>> columnas = new ArrayList<>();
+        for (int i = 0; i <= limites.size(); i++) {
+            Predicate enRango;
+            if (i == 0) {
+                enRango = cb.lessThan(precio, limites.get(0));
+            } else if (i == limites.size()) {
+                enRango = cb.greaterThanOrEqualTo(precio, limites.get(i - 1));
+            } else {
+                enRango = cb.and(cb.greaterThanOrEqualTo(precio, limites.get(i - 1)), cb.lessThan(precio, limites.get(i)));
+            }
+            columnas.add(cb.sum(cb.<Long>selectCase().when(enRango, cb.literal(1L)).otherwise(cb.literal(0L))));
+        }
+        query.multiselect(columnas).where(filtro.toPredicate(root, query, cb));
+
+        Tuple fila = entityManager.createQuery(query).getSingleResult();
+        long[] cantidades = new long[columnas.size()];
+        for (int i = 0; i < cantidades.length; i++) {
+            Object valor = fila.get(i);
+            cantidades[i] = valor == null ? 0 : ((Number) valor).longValue();
+        }
+        return cantidades;
+    }
+}
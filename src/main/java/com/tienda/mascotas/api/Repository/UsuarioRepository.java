@@ -2,8 +2,12 @@ package com.tienda.mascotas.api.Repository;
 
 
 import com.tienda.mascotas.api.Model.Usuario;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +22,20 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 
     List<Usuario> findByActivoTrue();
 
+    List<Usuario> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("SELECT u.id, u.nombre, u.apellido FROM Usuario u")
+    List<Object[]> findNombres();
+
+    @Query("SELECT u.email FROM Usuario u")
+    List<String> findEmails();
+
+    // Solo si el hash sigue siendo el que se verificó
+    @Modifying
+    @Transactional
+    @Query("UPDATE Usuario u SET u.password = :nuevo WHERE u.id = :id AND u.password = :anterior")
+    int actualizarPassword(Long id, String anterior, String nuevo);
+
     List<Usuario> findByNombreContainingIgnoreCaseOrApellidoContainingIgnoreCase(
             String nombre, String apellido
     );
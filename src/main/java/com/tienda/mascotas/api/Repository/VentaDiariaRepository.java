@@ -0,0 +1,44 @@
+package com.tienda.mascotas.api.Repository;
+
+import com.tienda.mascotas.api.Model.VentaDiaria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface VentaDiariaRepository extends JpaRepository<VentaDiaria, Long>, VentaDiariaRepositoryCustom {
+
+    @Query("SELECT v.fecha AS fecha, SUM(v.unidades) AS unidades, SUM(v.ingresos) AS ingresos "
+            + "FROM VentaDiaria v WHERE v.fecha BETWEEN :inicio AND :fin GROUP BY v.fecha ORDER BY v.fecha")
+    List<VentasPorDia> sumarPorDia(LocalDate inicio, LocalDate fin);
+
+    @Query("SELECT v.productoId AS productoId, SUM(v.unidades) AS unidades, SUM(v.ingresos) AS ingresos "
+            + "FROM VentaDiaria v WHERE v.fecha BETWEEN :inicio AND :fin GROUP BY v.productoId ORDER BY SUM(v.ingresos) DESC")
+    List<VentasPorProducto> sumarPorProducto(LocalDate inicio, LocalDate fin);
+
+    @Query("SELECT v.categoriaId AS categoriaId, SUM(v.unidades) AS unidades, SUM(v.ingresos) AS ingresos "
+            + "FROM VentaDiaria v WHERE v.fecha BETWEEN :inicio AND :fin GROUP BY v.categoriaId ORDER BY SUM(v.ingresos) DESC")
+    List<VentasPorCategoria> sumarPorCategoria(LocalDate inicio, LocalDate fin);
+
+    interface VentasPorDia {
+        LocalDate getFecha();
+        Long getUnidades();
+        BigDecimal getIngresos();
+    }
+
+    interface VentasPorProducto {
+        Long getProductoId();
+        Long getUnidades();
+        BigDecimal getIngresos();
+    }
+
+    interface VentasPorCategoria {
+        Long getCategoriaId();
+        Long getUnidades();
+        BigDecimal getIngresos();
+    }
+}
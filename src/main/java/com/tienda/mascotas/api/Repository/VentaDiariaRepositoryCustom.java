@@ -0,0 +1,9 @@
+package com.tienda.mascotas.api.Repository;
+
+import java.util.Collection;
+
+public interface VentaDiariaRepositoryCustom {
+
+    // Suma (signo 1) o resta (signo -1) las líneas de los pedidos indicados en el acumulado diario
+    void acumular(Collection<Long> pedidoIds, int signo);
+}
@@ -0,0 +1,36 @@
+package com.tienda.mascotas.api.Repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.Collection;
+
+public class VentaDiariaRepositoryImpl implements VentaDiariaRepositoryCustom {
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Override
+    public void acumular(Collection<Long> pedidoIds, int signo) {
+        if (pedidoIds.isEmpty()) {
+            return;
+        }
+        namedParameterJdbcTemplate.update(
+                "INSERT INTO ventas_diarias (fecha, producto_id, categoria_id, unidades, ingresos) "
+                        + "SELECT CAST(p.fecha_pedido AS date), d.producto_id, pr.categoria_id, "
+                        + ":signo * SUM(d.cantidad), :signo * SUM(d.subtotal) "
+                        + "FROM pedidos p "
+                        + "JOIN detalle_pedido d ON d.pedido_id = p.id "
+                        + "JOIN productos pr ON pr.id = d.producto_id "
+                        + "WHERE p.id IN (:ids) AND p.estado <> 'CANCELADO' "
+                        + "GROUP BY CAST(p.fecha_pedido AS date), d.producto_id, pr.categoria_id "
+                        + "ON CONFLICT (fecha, producto_id) DO UPDATE SET "
+                        + "unidades = ventas_diarias.unidades + EXCLUDED.unidades, "
+                        + "ingresos = ventas_diarias.ingresos + EXCLUDED.ingresos",
+                new MapSqlParameterSource()
+                        .addValue("ids", pedidoIds)
+                        .addValue("signo", signo)
+        );
+    }
+}
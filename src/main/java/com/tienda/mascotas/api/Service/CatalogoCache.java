@@ -0,0 +1,81 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Model.Producto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+// Invalidación de las lecturas cacheadas del catálogo. Solo se descartan las entradas
+// que pueden contener los productos modificados, y siempre después del commit para que
+// una lectura concurrente no vuelva a cachear datos viejos.
+@Service
+public class CatalogoCache {
+
+    public static final String ACTIVOS = "productosActivos";
+    public static final String DESTACADOS = "productosDestacados";
+    public static final String POR_CATEGORIA = "productosPorCategoria";
+    public static final String DISPONIBLES = "productosDisponibles";
+    public static final String RECIENTES = "productosRecientes";
+
+    private static final String[] TODAS = {ACTIVOS, DESTACADOS, POR_CATEGORIA, DISPONIBLES, RECIENTES};
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private VersionCatalogo versionCatalogo;
+
+    public void invalidarProductos(Collection<Producto> productos) {
+        Set<Long> categoriaIds = new HashSet<>();
+        boolean algunoDestacado = false;
+        for (Producto producto : productos) {
+            categoriaIds.add(producto.getCategoria().getId());
+            algunoDestacado |= Boolean.TRUE.equals(producto.getDestacado());
+        }
+        invalidarProductos(categoriaIds, algunoDestacado);
+    }
+
+    public void invalidarProductos(Collection<Long> categoriaIds, boolean algunoDestacado) {
+        Transacciones.despuesDelCommit(() -> {
+            limpiar(ACTIVOS);
+            limpiar(DISPONIBLES);
+            limpiar(RECIENTES);
+            if (algunoDestacado) {
+                limpiar(DESTACADOS);
+            }
+            Cache porCategoria = cacheManager.getCache(POR_CATEGORIA);
+            if (porCategoria != null) {
+                for (Long categoriaId : categoriaIds) {
+                    porCategoria.evict(categoriaId);
+                }
+            }
+            versionCatalogo.avanzar();
+        });
+    }
+
+    // Una categoría nueva todavía no tiene productos: solo cambia el listado de categorías
+    public void categoriaCreada() {
+        Transacciones.despuesDelCommit(versionCatalogo::avanzar);
+    }
+
+    public void invalidarTodo() {
+        Transacciones.despuesDelCommit(() -> {
+            for (String nombre : TODAS) {
+                limpiar(nombre);
+            }
+            versionCatalogo.avanzar();
+        });
+    }
+
+    private void limpiar(String nombre) {
+        Cache cache = cacheManager.getCache(nombre);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
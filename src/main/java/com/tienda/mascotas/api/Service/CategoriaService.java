@@ -14,19 +14,29 @@ public class CategoriaService {
     @Autowired
     private CategoriaRepository categoriaRepository;
 
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    @Autowired
+    private RegistroCategorias registroCategorias;
+
     public List<Categoria> obtenerTodas() {
-        return categoriaRepository.findAll();
+        return registroCategorias.todas();
     }
 
     public Optional<Categoria> obtenerPorId(Long id) {
-        return categoriaRepository.findById(id);
+        return registroCategorias.porId(id);
     }
 
     public Categoria crear(Categoria categoria) {
-        if (categoriaRepository.existsByNombre(categoria.getNombre())) {
+        if (registroCategorias.existeNombre(categoria.getNombre())) {
             throw new RuntimeException("Ya existe una categoría con ese nombre");
         }
-        return categoriaRepository.save(categoria);
+        Categoria guardada = categoriaRepository.save(categoria);
+        // Antes que la caché: la nueva versión del catálogo ya debe ver la instantánea nueva
+        registroCategorias.categoriasModificadas();
+        catalogoCache.categoriaCreada();
+        return guardada;
     }
 
     public Categoria actualizar(Long id, Categoria categoriaActualizada) {
@@ -37,7 +47,11 @@ public class CategoriaService {
         categoria.setDescripcion(categoriaActualizada.getDescripcion());
         categoria.setActiva(categoriaActualizada.getActiva());
 
-        return categoriaRepository.save(categoria);
+        Categoria guardada = categoriaRepository.save(categoria);
+        registroCategorias.categoriasModificadas();
+        // Los productos llevan la categoría embebida en su JSON
+        catalogoCache.invalidarTodo();
+        return guardada;
     }
 
     public void eliminar(Long id) {
@@ -45,9 +59,11 @@ public class CategoriaService {
                 .orElseThrow(() -> new RuntimeException("Categoría no encontrada"));
         categoria.setActiva(false);
         categoriaRepository.save(categoria);
+        registroCategorias.categoriasModificadas();
+        catalogoCache.invalidarTodo();
     }
 
     public List<Categoria> obtenerActivas() {
-        return categoriaRepository.findByActivaTrue();
+        return registroCategorias.activas();
     }
 }
\ No newline at end of file
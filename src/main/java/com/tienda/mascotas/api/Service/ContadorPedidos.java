@@ -0,0 +1,116 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Model.Pedido;
+import com.tienda.mascotas.api.Repository.PedidoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Cantidad de pedidos por estado mantenida en memoria: se ajusta en cada alta o cambio
+// de estado confirmado y se reconcilia periódicamente con un único GROUP BY
+@Service
+public class ContadorPedidos {
+
+    private static final Pedido.EstadoPedido[] ESTADOS = Pedido.EstadoPedido.values();
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    private final AtomicLongArray conteos = new AtomicLongArray(ESTADOS.length);
+    private volatile boolean cargado;
+
+    // Una sola consulta a la vez, sin tomar el candado de los ajustes mientras espera a la base
+    private final Object consulta = new Object();
+    // Ajustes confirmados mientras corre el GROUP BY; null si no corre ninguno. Su resultado no
+    // los incluye (salvo el que se confirmó justo antes de empezar y se aplicó después, que la
+    // próxima reconciliación corrige), así que se le suman en vez de descartar la corrida.
+    private long[] durante;
+
+    @Scheduled(fixedDelayString = "${pedidos.contadores.reconciliar-ms:300000}")
+    public void reconciliar() {
+        synchronized (consulta) {
+            synchronized (this) {
+                durante = new long[ESTADOS.length];
+            }
+            try {
+                long[] reales = new long[ESTADOS.length];
+                List<Object[]> filas = pedidoRepository.contarAgrupadoPorEstado();
+                for (Object[] fila : filas) {
+                    reales[((Pedido.EstadoPedido) fila[0]).ordinal()] = ((Number) fila[1]).longValue();
+                }
+                synchronized (this) {
+                    for (int i = 0; i < reales.length; i++) {
+                        conteos.set(i, reales[i] + durante[i]);
+                    }
+                    cargado = true;
+                }
+            } finally {
+                synchronized (this) {
+                    durante = null;
+                }
+            }
+        }
+    }
+
+    public void registrarAlta(Pedido.EstadoPedido estado) {
+        ajustar(null, estado);
+    }
+
+    public void registrarCambio(Pedido.EstadoPedido anterior, Pedido.EstadoPedido nuevo) {
+        if (anterior == nuevo) {
+            return;
+        }
+        ajustar(anterior, nuevo);
+    }
+
+    private void ajustar(Pedido.EstadoPedido anterior, Pedido.EstadoPedido nuevo) {
+        Transacciones.alTerminar(confirmada -> {
+            if (!confirmada) {
+                return;
+            }
+            synchronized (this) {
+                if (anterior != null) {
+                    sumar(anterior, -1);
+                }
+                sumar(nuevo, 1);
+            }
+        });
+    }
+
+    private void sumar(Pedido.EstadoPedido estado, long cantidad) {
+        conteos.addAndGet(estado.ordinal(), cantidad);
+        if (durante != null) {
+            durante[estado.ordinal()] += cantidad;
+        }
+    }
+
+    public long contar(Pedido.EstadoPedido estado) {
+        asegurarCargado();
+        return conteos.get(estado.ordinal());
+    }
+
+    public Map<Pedido.EstadoPedido, Long> todos() {
+        asegurarCargado();
+        Map<Pedido.EstadoPedido, Long> resultado = new EnumMap<>(Pedido.EstadoPedido.class);
+        for (Pedido.EstadoPedido estado : ESTADOS) {
+            resultado.put(estado, conteos.get(estado.ordinal()));
+        }
+        return resultado;
+    }
+
+    // La primera carga consulta fuera del candado de los ajustes: los commits no esperan a la base
+    private void asegurarCargado() {
+        if (!cargado) {
+            synchronized (consulta) {
+                if (!cargado) {
+                    reconciliar();
+                }
+            }
+        }
+    }
+}
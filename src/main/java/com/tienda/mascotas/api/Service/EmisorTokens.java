@@ -0,0 +1,40 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Model.Usuario;
+import com.tienda.mascotas.api.config.JwtConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+
+// El token lleva lo necesario para identificar al usuario sin ir a la base: id, email y role
+@Service
+public class EmisorTokens {
+
+    @Autowired
+    private JwtEncoder jwtEncoder;
+
+    // Milisegundos, como en application-prod.properties
+    @Value("${jwt.expiration:86400000}")
+    private long expiracionMs;
+
+    public String emitir(Usuario usuario) {
+        Instant ahora = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(JwtConfig.EMISOR)
+                .subject(String.valueOf(usuario.getId()))
+                .issuedAt(ahora)
+                .expiresAt(ahora.plusMillis(expiracionMs))
+                .claim("email", usuario.getEmail())
+                .claim(JwtConfig.CLAIM_ROLE, usuario.getRole().name())
+                .build();
+        JwsHeader encabezado = JwsHeader.with(MacAlgorithm.HS256).build();
+        return jwtEncoder.encode(JwtEncoderParameters.from(encabezado, claims)).getTokenValue();
+    }
+}
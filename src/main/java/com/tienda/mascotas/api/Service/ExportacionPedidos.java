@@ -0,0 +1,77 @@
+package com.tienda.mascotas.api.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tienda.mascotas.api.Model.PedidoExportado;
+import com.tienda.mascotas.api.Repository.PedidoRepository;
+import com.tienda.mascotas.api.config.LecturaReplica;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+// Exporta pedidos escribiendo cada fila en la respuesta a medida que llega de la base:
+// la memoria usada no depende del tamaño del rango de fechas
+@Service
+public class ExportacionPedidos {
+
+    private static final String ENCABEZADO_CSV =
+            "id,fecha_pedido,usuario_id,email,estado,total,metodo_pago,direccion_envio,unidades";
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @LecturaReplica
+    public void exportar(LocalDateTime inicio, LocalDateTime fin, boolean csv, OutputStream salida) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        if (csv) {
+            escritor.write(ENCABEZADO_CSV);
+            escritor.write('\n');
+        }
+
+        try {
+            pedidoRepository.recorrerPorFechas(inicio, fin, fila -> {
+                try {
+                    escritor.write(csv ? aCsv(fila) : objectMapper.writeValueAsString(fila));
+                    escritor.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        escritor.flush();
+    }
+
+    private String aCsv(PedidoExportado fila) {
+        return fila.getId() + ","
+                + fila.getFechaPedido() + ","
+                + fila.getUsuarioId() + ","
+                + campo(fila.getEmail()) + ","
+                + fila.getEstado() + ","
+                + fila.getTotal() + ","
+                + campo(fila.getMetodoPago()) + ","
+                + campo(fila.getDireccionEnvio()) + ","
+                + fila.getUnidades();
+    }
+
+    private String campo(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,77 @@
+package com.tienda.mascotas.api.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Filtro de Bloom concurrente: agregar y consultar no toman candados (los bits solo se encienden).
+// "No contiene" es seguro; "puede contener" se confirma afuera.
+class FiltroBloom {
+
+    private final AtomicLongArray bits;
+    private final long cantidadBits;
+    private final int funciones;
+    private final AtomicLong agregados = new AtomicLong();
+
+    // Tamaño y cantidad de funciones óptimos para la capacidad y la tasa de falsos positivos buscada
+    FiltroBloom(long capacidad, double tasaFalsosPositivos) {
+        long m = (long) Math.ceil(-capacidad * Math.log(tasaFalsosPositivos) / (Math.log(2) * Math.log(2)));
+        cantidadBits = Math.max(64, (m + 63) / 64 * 64);
+        funciones = Math.max(1, (int) Math.round((double) cantidadBits / capacidad * Math.log(2)));
+        bits = new AtomicLongArray(Math.toIntExact(cantidadBits / 64));
+    }
+
+    void agregar(String valor) {
+        long hash = hash(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= funciones; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % cantidadBits;
+            int indice = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            long actual;
+            do {
+                actual = bits.get(indice);
+            } while ((actual & mascara) == 0 && !bits.compareAndSet(indice, actual, actual | mascara));
+        }
+        agregados.incrementAndGet();
+    }
+
+    boolean puedeContener(String valor) {
+        long hash = hash(valor);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= funciones; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % cantidadBits;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Tasa esperada con los elementos agregados hasta ahora: (1 - e^(-kn/m))^k
+    double tasaEstimada() {
+        double llenado = 1 - Math.exp(-(double) funciones * agregados.get() / cantidadBits);
+        return Math.pow(llenado, funciones);
+    }
+
+    long getAgregados() {
+        return agregados.get();
+    }
+
+    // FNV-1a de 64 bits sobre UTF-8 con la mezcla final de MurmurHash3, para repartir bien ambas mitades
+    private static long hash(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,105 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Repository.UsuarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+
+// Emails registrados en un filtro de Bloom: si el filtro dice que no está, el alta no consulta
+// la base. Un "puede estar" se confirma con existsByEmail, y la restricción única de la tabla
+// sigue decidiendo ante altas simultáneas. Las bajas no se quitan: solo suman falsos positivos.
+@Service
+public class FiltroEmails {
+
+    private static final Logger log = LoggerFactory.getLogger(FiltroEmails.class);
+
+    @Value("${usuarios.bloom.capacidad:1000000}")
+    private long capacidad;
+
+    @Value("${usuarios.bloom.falsos-positivos:0.01}")
+    private double tasaFalsosPositivos;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private FiltroBloom filtro;
+    private volatile boolean listo;
+
+    private Counter descartados;
+    private Counter confirmados;
+    private Counter falsosPositivos;
+
+    @PostConstruct
+    public void iniciar() {
+        filtro = new FiltroBloom(capacidad, tasaFalsosPositivos);
+        descartados = meterRegistry.counter("usuarios.bloom.consultas", "resultado", "ausente");
+        confirmados = meterRegistry.counter("usuarios.bloom.consultas", "resultado", "existente");
+        falsosPositivos = meterRegistry.counter("usuarios.bloom.consultas", "resultado", "falso_positivo");
+        // Falsos positivos sobre todos los emails nuevos consultados
+        Gauge.builder("usuarios.bloom.tasa_falsos_positivos", this, FiltroEmails::tasaObservada)
+                .description("Falsos positivos observados / emails inexistentes consultados")
+                .register(meterRegistry);
+        Gauge.builder("usuarios.bloom.tasa_estimada", filtro, FiltroBloom::tasaEstimada)
+                .description("Tasa de falsos positivos esperada según el llenado del filtro")
+                .register(meterRegistry);
+        Gauge.builder("usuarios.bloom.emails", filtro, FiltroBloom::getAgregados)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        try {
+            // Las altas durante la carga también encienden sus bits: no hace falta coordinarlas
+            for (String email : usuarioRepository.findEmails()) {
+                filtro.agregar(normalizar(email));
+            }
+            listo = true;
+        } catch (RuntimeException e) {
+            log.warn("No se pudo cargar el filtro de emails; cada alta consultará la base", e);
+        }
+    }
+
+    public boolean existe(String email) {
+        if (email == null) {
+            return false;
+        }
+        if (listo && !filtro.puedeContener(normalizar(email))) {
+            descartados.increment();
+            return false;
+        }
+        boolean existe = usuarioRepository.existsByEmail(email);
+        if (listo) {
+            (existe ? confirmados : falsosPositivos).increment();
+        }
+        return existe;
+    }
+
+    public void agregar(String email) {
+        if (email != null) {
+            filtro.agregar(normalizar(email));
+        }
+    }
+
+    private double tasaObservada() {
+        double negativos = descartados.count() + falsosPositivos.count();
+        return negativos == 0 ? 0 : falsosPositivos.count() / negativos;
+    }
+
+    // Minúsculas: una variante en mayúsculas cae en "puede estar" y la base decide
+    private static String normalizar(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
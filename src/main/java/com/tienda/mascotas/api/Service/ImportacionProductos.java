@@ -0,0 +1,451 @@
+package com.tienda.mascotas.api.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tienda.mascotas.api.Model.Categoria;
+import com.tienda.mascotas.api.Model.Producto;
+import com.tienda.mascotas.api.Model.ResultadoImportacion;
+import com.tienda.mascotas.api.Repository.ProductoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Importación masiva de productos desde CSV (con encabezado) o NDJSON (un objeto por línea).
+// Se lee el cuerpo a medida que llega y se escribe por lotes JDBC, con un commit por lote:
+// una fila con error se informa y no frena al resto.
+@Service
+public class ImportacionProductos {
+
+    private static final int MAX_ERRORES_DETALLADOS = 1000;
+    // Tope para un registro CSV que sigue en la línea siguiente: una comilla sin cerrar no se come el archivo
+    static final int MAX_CARACTERES_REGISTRO = 64 * 1024;
+
+    @Value("${importacion.productos.lote:500}")
+    private int tamanoLote;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private RegistroCategorias registroCategorias;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    @Autowired
+    private InventarioEnMemoria inventarioEnMemoria;
+
+    @Autowired
+    private IndiceBusqueda indiceBusqueda;
+
+    public ResultadoImportacion importar(InputStream entrada, boolean csv) {
+        long idMaximoAnterior = productoRepository.idMaximo();
+        ResultadoImportacion resultado = new ResultadoImportacion();
+        List<Long> actualizados = new ArrayList<>();
+        List<Fila> lote = new ArrayList<>(tamanoLote);
+
+        BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        Iterator<Registro> registros = csv ? new LectorCsv(lector) : new LectorNdjson(lector);
+        while (registros.hasNext()) {
+            Registro registro = registros.next();
+            resultado.setProcesadas(resultado.getProcesadas() + 1);
+            if (registro.error() != null) {
+                registrarError(resultado, registro.numero(), registro.error());
+                continue;
+            }
+            try {
+                lote.add(new Fila(registro.numero(), convertir(registro.campos())));
+            } catch (RuntimeException e) {
+                registrarError(resultado, registro.numero(), e.getMessage());
+                continue;
+            }
+            if (lote.size() == tamanoLote) {
+                procesar(lote, resultado, actualizados);
+                lote.clear();
+            }
+        }
+        procesar(lote, resultado, actualizados);
+
+        if (resultado.getCreadas() + resultado.getActualizadas() > 0) {
+            catalogoCache.invalidarTodo();
+            actualizados.forEach(inventarioEnMemoria::invalidar);
+            indiceBusqueda.productosImportados(idMaximoAnterior, actualizados);
+        }
+        return resultado;
+    }
+
+    private void procesar(List<Fila> lote, ResultadoImportacion resultado, List<Long> actualizados) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        try {
+            Set<Fila> sinCambios = transactionTemplate.execute(status -> escribir(lote));
+            for (Fila fila : lote) {
+                if (sinCambios.contains(fila)) {
+                    registrarError(resultado, fila.numero(), "Producto no encontrado: " + fila.producto().getId());
+                } else if (fila.producto().getId() == null) {
+                    resultado.setCreadas(resultado.getCreadas() + 1);
+                } else {
+                    resultado.setActualizadas(resultado.getActualizadas() + 1);
+                    actualizados.add(fila.producto().getId());
+                }
+            }
+        } catch (RuntimeException e) {
+            if (lote.size() == 1) {
+                registrarError(resultado, lote.get(0).numero(), mensaje(e));
+                return;
+            }
+            // Una fila rechazada por la base revierte el lote: se reintenta cada una por separado
+            for (Fila fila : lote) {
+                procesar(List.of(fila), resultado, actualizados);
+            }
+        }
+    }
+
+    // Devuelve las modificaciones cuyo id no existe
+    private Set<Fila> escribir(List<Fila> lote) {
+        List<Producto> altas = new ArrayList<>();
+        List<Fila> modificaciones = new ArrayList<>();
+        for (Fila fila : lote) {
+            if (fila.producto().getId() == null) {
+                altas.add(fila.producto());
+            } else {
+                modificaciones.add(fila);
+            }
+        }
+
+        productoRepository.insertarLote(altas);
+        List<Producto> productos = new ArrayList<>(modificaciones.size());
+        for (Fila fila : modificaciones) {
+            productos.add(fila.producto());
+        }
+        int[] filas = productoRepository.actualizarLote(productos);
+
+        // Por identidad: dos filas con los mismos datos siguen siendo filas distintas del archivo
+        Set<Fila> sinCambios = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < filas.length; i++) {
+            if (filas[i] == 0) {
+                sinCambios.add(modificaciones.get(i));
+            }
+        }
+        return sinCambios;
+    }
+
+    private Producto convertir(Map<String, String> campos) {
+        Producto producto = new Producto();
+
+        String id = campos.get("id");
+        if (id != null) {
+            producto.setId(numero(id, "id"));
+        }
+
+        String nombre = campos.get("nombre");
+        if (nombre == null) {
+            throw new RuntimeException("El nombre es obligatorio");
+        }
+        producto.setNombre(nombre);
+
+        String descripcion = campos.get("descripcion");
+        if (descripcion != null && descripcion.length() > 1000) {
+            throw new RuntimeException("La descripción supera los 1000 caracteres");
+        }
+        producto.setDescripcion(descripcion);
+
+        String precio = campos.get("precio");
+        if (precio == null) {
+            throw new RuntimeException("El precio es obligatorio");
+        }
+        try {
+            producto.setPrecio(new BigDecimal(precio.trim()));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Precio inválido: " + precio);
+        }
+        if (producto.getPrecio().signum() < 0) {
+            throw new RuntimeException("El precio no puede ser negativo");
+        }
+
+        String stock = campos.get("stock");
+        producto.setStock(stock == null ? 0 : Math.toIntExact(numero(stock, "stock")));
+        if (producto.getStock() < 0) {
+            throw new RuntimeException("El stock no puede ser negativo");
+        }
+
+        producto.setImagenUrl(campos.get("imagenurl"));
+        producto.setDestacado(booleano(campos.get("destacado"), false, "destacado"));
+        producto.setActivo(booleano(campos.get("activo"), true, "activo"));
+
+        Long categoriaId;
+        String categoria = campos.get("categoriaid");
+        if (categoria != null) {
+            categoriaId = numero(categoria, "categoriaId");
+            if (!registroCategorias.existe(categoriaId)) {
+                throw new RuntimeException("Categoría no encontrada: " + categoria);
+            }
+        } else {
+            String nombreCategoria = campos.get("categoria");
+            if (nombreCategoria == null) {
+                throw new RuntimeException("Debe especificar una categoría");
+            }
+            // Se aceptan por id o por nombre, resueltos contra el registro en memoria
+            categoriaId = registroCategorias.porNombreAproximado(nombreCategoria)
+                    .map(Categoria::getId)
+                    .orElseThrow(() -> new RuntimeException("Categoría no encontrada: " + nombreCategoria));
+        }
+        Categoria referencia = new Categoria();
+        referencia.setId(categoriaId);
+        producto.setCategoria(referencia);
+        return producto;
+    }
+
+    private long numero(String valor, String campo) {
+        try {
+            return Long.parseLong(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Valor inválido para " + campo + ": " + valor);
+        }
+    }
+
+    private boolean booleano(String valor, boolean porDefecto, String campo) {
+        if (valor == null) {
+            return porDefecto;
+        }
+        switch (valor.trim().toLowerCase(Locale.ROOT)) {
+            case "true":
+            case "1":
+                return true;
+            case "false":
+            case "0":
+                return false;
+            default:
+                throw new RuntimeException("Valor inválido para " + campo + ": " + valor);
+        }
+    }
+
+    private void registrarError(ResultadoImportacion resultado, long fila, String mensaje) {
+        resultado.setConError(resultado.getConError() + 1);
+        if (resultado.getErrores().size() < MAX_ERRORES_DETALLADOS) {
+            resultado.getErrores().add(new ResultadoImportacion.ErrorFila(fila, mensaje));
+        }
+    }
+
+    private String mensaje(RuntimeException e) {
+        if (e instanceof DataAccessException acceso && acceso.getMostSpecificCause().getMessage() != null) {
+            return acceso.getMostSpecificCause().getMessage();
+        }
+        return e.getMessage();
+    }
+
+    // Nombres de campo sin mayúsculas ni guiones bajos: "categoria_id" y "categoriaId" son el mismo
+    private static String clave(String nombre) {
+        return nombre.trim().replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static String valor(String texto) {
+        return texto == null || texto.isBlank() ? null : texto;
+    }
+
+    private record Fila(long numero, Producto producto) {
+    }
+
+    // Una fila leída: sus campos, o el motivo por el que no se pudo leer
+    private record Registro(long numero, Map<String, String> campos, String error) {
+    }
+
+    private abstract static class Lector implements Iterator<Registro> {
+        protected final BufferedReader lector;
+        protected long numeroLinea;
+        private Registro siguiente;
+
+        protected Lector(BufferedReader lector) {
+            this.lector = lector;
+        }
+
+        protected String leerLinea() {
+            try {
+                String linea = lector.readLine();
+                if (linea != null) {
+                    numeroLinea++;
+                }
+                return linea;
+            } catch (IOException e) {
+                throw new RuntimeException("No se pudo leer el archivo: " + e.getMessage());
+            }
+        }
+
+        protected abstract Registro leer();
+
+        @Override
+        public boolean hasNext() {
+            if (siguiente == null) {
+                siguiente = leer();
+            }
+            return siguiente != null;
+        }
+
+        @Override
+        public Registro next() {
+            hasNext();
+            Registro registro = siguiente;
+            siguiente = null;
+            return registro;
+        }
+    }
+
+    private static class LectorCsv extends Lector {
+        private List<String> encabezado;
+
+        LectorCsv(BufferedReader lector) {
+            super(lector);
+        }
+
+        @Override
+        protected Registro leer() {
+            if (encabezado == null) {
+                String primera = leerLinea();
+                if (primera == null) {
+                    return null;
+                }
+                String linea = primera.replace("\uFEFF", "");
+                if (comillasImpares(linea)) {
+                    throw new RuntimeException("Encabezado CSV inválido");
+                }
+                List<String> columnas = dividir(linea);
+                encabezado = new ArrayList<>();
+                for (String columna : columnas) {
+                    encabezado.add(clave(columna));
+                }
+            }
+
+            String linea = leerLinea();
+            while (linea != null && linea.isBlank()) {
+                linea = leerLinea();
+            }
+            if (linea == null) {
+                return null;
+            }
+            long inicio = numeroLinea;
+            // Un campo entre comillas puede incluir saltos de línea: se juntan las líneas hasta cerrarlas.
+            // Alcanza con la paridad de cada línea nueva, sin volver a dividir todo lo acumulado
+            StringBuilder registro = new StringBuilder(linea);
+            boolean abierto = comillasImpares(linea);
+            while (abierto) {
+                if (registro.length() > MAX_CARACTERES_REGISTRO) {
+                    return new Registro(inicio, null,
+                            "Comillas sin cerrar: el registro supera los " + MAX_CARACTERES_REGISTRO + " caracteres");
+                }
+                String continuacion = leerLinea();
+                if (continuacion == null) {
+                    return new Registro(inicio, null, "Comillas sin cerrar");
+                }
+                registro.append('\n').append(continuacion);
+                abierto ^= comillasImpares(continuacion);
+            }
+            List<String> campos = dividir(registro.toString());
+            if (campos.size() != encabezado.size()) {
+                return new Registro(inicio, null,
+                        "Se esperaban " + encabezado.size() + " columnas y hay " + campos.size());
+            }
+            Map<String, String> valores = new HashMap<>();
+            for (int i = 0; i < campos.size(); i++) {
+                valores.put(encabezado.get(i), valor(campos.get(i)));
+            }
+            return new Registro(inicio, valores, null);
+        }
+
+        // Cada comilla abre o cierra y "" suma dos: queda abierta si la cantidad es impar
+        private static boolean comillasImpares(String linea) {
+            boolean impar = false;
+            for (int i = 0; i < linea.length(); i++) {
+                if (linea.charAt(i) == '"') {
+                    impar = !impar;
+                }
+            }
+            return impar;
+        }
+
+        // Divide respetando comillas dobles ("" es una comilla literal)
+        private static List<String> dividir(String linea) {
+            List<String> campos = new ArrayList<>();
+            StringBuilder actual = new StringBuilder();
+            boolean entreComillas = false;
+            for (int i = 0; i < linea.length(); i++) {
+                char c = linea.charAt(i);
+                if (entreComillas) {
+                    if (c != '"') {
+                        actual.append(c);
+                    } else if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                        actual.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else if (c == '"') {
+                    entreComillas = true;
+                } else if (c == ',') {
+                    campos.add(actual.toString());
+                    actual.setLength(0);
+                } else {
+                    actual.append(c);
+                }
+            }
+            campos.add(actual.toString());
+            return campos;
+        }
+    }
+
+    private class LectorNdjson extends Lector {
+
+        LectorNdjson(BufferedReader lector) {
+            super(lector);
+        }
+
+        @Override
+        protected Registro leer() {
+            String linea = leerLinea();
+            while (linea != null && linea.isBlank()) {
+                linea = leerLinea();
+            }
+            if (linea == null) {
+                return null;
+            }
+            try {
+                JsonNode objeto = objectMapper.readTree(linea);
+                if (!objeto.isObject()) {
+                    return new Registro(numeroLinea, null, "Se esperaba un objeto JSON");
+                }
+                Map<String, String> valores = new HashMap<>();
+                for (Map.Entry<String, JsonNode> campo : objeto.properties()) {
+                    valores.put(clave(campo.getKey()), campo.getValue().isNull() ? null : valor(campo.getValue().asText()));
+                }
+                return new Registro(numeroLinea, valores, null);
+            } catch (JsonProcessingException e) {
+                return new Registro(numeroLinea, null, "JSON inválido: " + e.getOriginalMessage());
+            }
+        }
+    }
+}
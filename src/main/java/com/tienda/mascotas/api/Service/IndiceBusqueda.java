@@ -0,0 +1,111 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Model.Producto;
+import com.tienda.mascotas.api.Model.Usuario;
+import com.tienda.mascotas.api.Repository.ProductoRepository;
+import com.tienda.mascotas.api.Repository.UsuarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+// Índices de búsqueda por texto de productos (nombre y descripción, solo activos) y usuarios
+// (nombre y apellido). Se construyen al arrancar; hasta que estén listos los servicios usan la base.
+@Service
+public class IndiceBusqueda {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceBusqueda.class);
+
+    private static final int LOTE_RECARGA = 1000;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private final IndiceNGramas productos = new IndiceNGramas();
+    private final IndiceNGramas usuarios = new IndiceNGramas();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construir() {
+        try {
+            productos.iniciarCarga();
+            for (Object[] fila : productoRepository.findTextosActivos()) {
+                productos.cargar((Long) fila[0], (String) fila[1], (String) fila[2]);
+            }
+            productos.terminarCarga();
+
+            usuarios.iniciarCarga();
+            for (Object[] fila : usuarioRepository.findNombres()) {
+                usuarios.cargar((Long) fila[0], (String) fila[1], (String) fila[2]);
+            }
+            usuarios.terminarCarga();
+        } catch (RuntimeException e) {
+            log.warn("No se pudo construir el índice de búsqueda; se seguirá buscando en la base", e);
+        }
+    }
+
+    // null mientras el índice no esté construido
+    public List<Long> buscarProductos(String texto) {
+        return productos.isListo() ? productos.buscar(texto) : null;
+    }
+
+    public List<Long> buscarUsuarios(String texto) {
+        return usuarios.isListo() ? usuarios.buscar(texto) : null;
+    }
+
+    public void productoGuardado(Producto producto) {
+        Long id = producto.getId();
+        String nombre = producto.getNombre();
+        String descripcion = producto.getDescripcion();
+        boolean activo = Boolean.TRUE.equals(producto.getActivo());
+        Transacciones.despuesDelCommit(() -> {
+            if (activo) {
+                productos.poner(id, nombre, descripcion);
+            } else {
+                productos.quitar(id);
+            }
+        });
+    }
+
+    // Tras una importación masiva: los altas son los ids posteriores al máximo previo
+    public void productosImportados(long idMaximoAnterior, List<Long> actualizados) {
+        Transacciones.despuesDelCommit(() -> {
+            indexar(productoRepository.findTextosDesde(idMaximoAnterior));
+            for (int i = 0; i < actualizados.size(); i += LOTE_RECARGA) {
+                List<Long> tramo = actualizados.subList(i, Math.min(i + LOTE_RECARGA, actualizados.size()));
+                indexar(productoRepository.findTextosPorIds(tramo));
+            }
+        });
+    }
+
+    private void indexar(List<Object[]> filas) {
+        for (Object[] fila : filas) {
+            if (Boolean.TRUE.equals(fila[3])) {
+                productos.poner((Long) fila[0], (String) fila[1], (String) fila[2]);
+            } else {
+                productos.quitar((Long) fila[0]);
+            }
+        }
+    }
+
+    public void productoEliminado(Long id) {
+        Transacciones.despuesDelCommit(() -> productos.quitar(id));
+    }
+
+    public void usuarioGuardado(Usuario usuario) {
+        Long id = usuario.getId();
+        String nombre = usuario.getNombre();
+        String apellido = usuario.getApellido();
+        Transacciones.despuesDelCommit(() -> usuarios.poner(id, nombre, apellido));
+    }
+
+    public void usuarioEliminado(Long id) {
+        Transacciones.despuesDelCommit(() -> usuarios.quitar(id));
+    }
+}
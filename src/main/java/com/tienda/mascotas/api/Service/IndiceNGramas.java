@@ -0,0 +1,249 @@
+package com.tienda.mascotas.api.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Índice de trigramas en memoria para búsquedas "contiene" sobre texto normalizado (minúsculas,
+// sin tildes, espacios colapsados). No es idéntico a LIKE '%x%': además de lo que encuentra
+// LIKE devuelve las variantes con o sin tildes, y busca también en los campos secundarios.
+// Las listas de ids son de solo agregado: al modificar o quitar un documento quedan ids
+// viejos que se descartan al verificar el texto, y se compactan cuando abundan.
+class IndiceNGramas {
+
+    private static final int N = 3;
+
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+    private final Map<Long, String[]> documentos = new HashMap<>();
+    private final Map<String, Ids> gramas = new HashMap<>();
+    private long entradas;
+    private long entradasVivas;
+
+    // Mientras se carga el índice, las escrituras en vivo ganan sobre la carga inicial
+    private Set<Long> modificadosDuranteCarga;
+    private volatile boolean listo;
+
+    boolean isListo() {
+        return listo;
+    }
+
+    void iniciarCarga() {
+        candado.writeLock().lock();
+        try {
+            modificadosDuranteCarga = new HashSet<>();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    void cargar(Long id, String... campos) {
+        candado.writeLock().lock();
+        try {
+            if (!modificadosDuranteCarga.contains(id)) {
+                agregar(id, campos);
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    void terminarCarga() {
+        candado.writeLock().lock();
+        try {
+            modificadosDuranteCarga = null;
+            listo = true;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    // El primer campo es el principal (nombre): pesa más en el orden de los resultados
+    void poner(Long id, String... campos) {
+        candado.writeLock().lock();
+        try {
+            marcarModificado(id);
+            quitarDocumento(id);
+            agregar(id, campos);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    void quitar(Long id) {
+        candado.writeLock().lock();
+        try {
+            marcarModificado(id);
+            quitarDocumento(id);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    // Ids de todos los documentos que contienen el texto, ordenados por relevancia
+    List<Long> buscar(String texto) {
+        String consulta = normalizar(texto);
+        if (consulta.isEmpty()) {
+            return List.of();
+        }
+
+        List<Coincidencia> coincidencias = new ArrayList<>();
+        candado.readLock().lock();
+        try {
+            if (consulta.length() < N) {
+                // Sin trigramas que usar: se recorren los textos, que ya están en memoria
+                for (Map.Entry<Long, String[]> documento : documentos.entrySet()) {
+                    evaluar(documento.getKey(), documento.getValue(), consulta, coincidencias);
+                }
+            } else {
+                Ids candidatos = masSelectivo(consulta);
+                if (candidatos == null) {
+                    return List.of();
+                }
+                Set<Long> vistos = new HashSet<>();
+                for (int i = 0; i < candidatos.tamano; i++) {
+                    long id = candidatos.valores[i];
+                    String[] campos = documentos.get(id);
+                    if (campos != null && vistos.add(id)) {
+                        evaluar(id, campos, consulta, coincidencias);
+                    }
+                }
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+
+        coincidencias.sort(Comparator.comparingInt(Coincidencia::puntaje)
+                .thenComparingInt(Coincidencia::largo)
+                .thenComparingLong(Coincidencia::id));
+        List<Long> ids = new ArrayList<>(coincidencias.size());
+        for (Coincidencia coincidencia : coincidencias) {
+            ids.add(coincidencia.id());
+        }
+        return ids;
+    }
+
+    // La lista más corta entre los trigramas de la consulta; null si alguno no existe
+    private Ids masSelectivo(String consulta) {
+        Ids menor = null;
+        for (int i = 0; i + N <= consulta.length(); i++) {
+            Ids ids = gramas.get(consulta.substring(i, i + N));
+            if (ids == null) {
+                return null;
+            }
+            if (menor == null || ids.tamano < menor.tamano) {
+                menor = ids;
+            }
+        }
+        return menor;
+    }
+
+    private void evaluar(long id, String[] campos, String consulta, List<Coincidencia> coincidencias) {
+        String principal = campos[0];
+        int posicion = principal.indexOf(consulta);
+        int puntaje;
+        if (principal.equals(consulta)) {
+            puntaje = 0;
+        } else if (posicion == 0) {
+            puntaje = 1;
+        } else if (principal.contains(" " + consulta)) {
+            puntaje = 2; // comienzo de una palabra del nombre
+        } else if (posicion > 0) {
+            puntaje = 3;
+        } else {
+            puntaje = -1;
+            for (int i = 1; i < campos.length && puntaje < 0; i++) {
+                if (campos[i].contains(consulta)) {
+                    puntaje = 3 + i;
+                }
+            }
+            if (puntaje < 0) {
+                return;
+            }
+        }
+        coincidencias.add(new Coincidencia(id, puntaje, principal.length()));
+    }
+
+    private void agregar(Long id, String[] campos) {
+        String[] normalizados = new String[campos.length];
+        Set<String> propios = new HashSet<>();
+        for (int i = 0; i < campos.length; i++) {
+            normalizados[i] = normalizar(campos[i]);
+            for (int j = 0; j + N <= normalizados[i].length(); j++) {
+                propios.add(normalizados[i].substring(j, j + N));
+            }
+        }
+        documentos.put(id, normalizados);
+        for (String grama : propios) {
+            gramas.computeIfAbsent(grama, g -> new Ids()).agregar(id);
+        }
+        entradas += propios.size();
+        entradasVivas += propios.size();
+    }
+
+    private void quitarDocumento(Long id) {
+        String[] anteriores = documentos.remove(id);
+        if (anteriores == null) {
+            return;
+        }
+        Set<String> propios = new HashSet<>();
+        for (String campo : anteriores) {
+            for (int j = 0; j + N <= campo.length(); j++) {
+                propios.add(campo.substring(j, j + N));
+            }
+        }
+        entradasVivas -= propios.size();
+        if (entradas > 1024 && entradasVivas < entradas / 2) {
+            compactar();
+        }
+    }
+
+    private void compactar() {
+        Map<Long, String[]> vigentes = new HashMap<>(documentos);
+        documentos.clear();
+        gramas.clear();
+        entradas = 0;
+        entradasVivas = 0;
+        for (Map.Entry<Long, String[]> documento : vigentes.entrySet()) {
+            agregar(documento.getKey(), documento.getValue());
+        }
+    }
+
+    private void marcarModificado(Long id) {
+        if (modificadosDuranteCarga != null) {
+            modificadosDuranteCarga.add(id);
+        }
+    }
+
+    // Minúsculas y sin tildes, para que "cachorro" encuentre "Cachórro"
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinTildes = Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return sinTildes.toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+
+    private record Coincidencia(long id, int puntaje, int largo) {
+    }
+
+    // Lista de ids con arreglo primitivo: con 100k productos un Set<Long> por trigrama no cabe
+    private static class Ids {
+        private long[] valores = new long[4];
+        private int tamano;
+
+        private void agregar(long id) {
+            if (tamano == valores.length) {
+                valores = Arrays.copyOf(valores, tamano * 2);
+            }
+            valores[tamano++] = id;
+        }
+    }
+}
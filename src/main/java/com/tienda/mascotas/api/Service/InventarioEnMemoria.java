@@ -0,0 +1,215 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Repository.PedidoRepository;
+import com.tienda.mascotas.api.Repository.ProductoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Inventario opcional para productos muy demandados: las reservas se resuelven con
+// CAS sobre contadores en memoria y el descuento en "productos" se vuelca por lotes.
+// Los pedidos quedan marcados con stock_pendiente hasta el volcado, así que tras un
+// reinicio el disponible se reconstruye como stock en base menos lo pendiente.
+@Service
+public class InventarioEnMemoria {
+
+    private static final int FRANJAS = 64;
+    private static final int LOTE_VOLCADO = 500;
+    private static final int RETIRADO = -1;
+
+    @Value("${inventario.memoria.enabled:false}")
+    private boolean habilitado;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    private final ConcurrentHashMap<Long, Contador> contadores = new ConcurrentHashMap<>();
+    private final Object[] franjas = new Object[FRANJAS];
+
+    public InventarioEnMemoria() {
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new Object();
+        }
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    // Reserva todo o nada; devuelve los productos sin stock suficiente.
+    // La reserva queda en vuelo hasta que termina la transacción: si se revierte se devuelve
+    // al mismo contador que se descontó.
+    public List<Long> reservar(Map<Long, Integer> cantidades) {
+        Map<Long, Contador> tomados = new HashMap<>();
+        for (Map.Entry<Long, Integer> entrada : new TreeMap<>(cantidades).entrySet()) {
+            Long productoId = entrada.getKey();
+            Contador contador = tomar(productoId);
+            if (!contador.descontar(entrada.getValue())) {
+                soltar(productoId, contador);
+                tomados.forEach((id, tomado) -> {
+                    tomado.disponible.addAndGet(cantidades.get(id));
+                    soltar(id, tomado);
+                });
+                return List.of(productoId);
+            }
+            tomados.put(productoId, contador);
+        }
+        Transacciones.alTerminar(confirmada -> tomados.forEach((id, contador) -> {
+            if (!confirmada) {
+                contador.disponible.addAndGet(cantidades.get(id));
+            }
+            soltar(id, contador);
+        }));
+        return List.of();
+    }
+
+    // Devuelve stock (pedido cancelado) cuando se confirme la transacción actual
+    public void liberar(Map<Long, Integer> cantidades) {
+        Map<Long, Contador> tomados = new HashMap<>();
+        for (Long productoId : cantidades.keySet()) {
+            tomados.put(productoId, tomar(productoId));
+        }
+        Transacciones.alTerminar(confirmada -> tomados.forEach((id, contador) -> {
+            if (confirmada) {
+                contador.disponible.addAndGet(cantidades.get(id));
+            }
+            soltar(id, contador);
+        }));
+    }
+
+    // Después de escribir el stock directamente en base: al confirmarse, cada contador vigente
+    // suma la diferencia entre el stock nuevo y el que había. No se retira, así que las reservas
+    // en vuelo siguen contando aunque en un producto muy pedido nunca dejen de superponerse.
+    public void ajustar(Map<Long, Integer> diferencias) {
+        Transacciones.despuesDelCommit(() -> diferencias.forEach((productoId, diferencia) -> {
+            // Con la franja tomada, un contador que se está cargando leyó la base antes del commit y
+            // ya está en el mapa, o la lee después y trae el stock nuevo
+            synchronized (franja(productoId)) {
+                Contador contador = contadores.get(productoId);
+                if (contador != null) {
+                    contador.disponible.addAndGet(diferencia);
+                }
+            }
+        }));
+    }
+
+    // Producto eliminado: se recarga en el próximo uso. Con reservas o devoluciones en vuelo la
+    // base todavía no las refleja, así que el contador se retira recién cuando termina la última.
+    public void invalidar(Long productoId) {
+        Contador contador = contadores.get(productoId);
+        if (contador != null) {
+            contador.obsoleto = true;
+            retirarSiCorresponde(productoId, contador);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventario.memoria.flush-ms:1000}")
+    public void volcar() {
+        if (!habilitado) {
+            return;
+        }
+        int volcados;
+        do {
+            volcados = transactionTemplate.execute(status -> {
+                List<Long> pedidoIds = pedidoRepository.findIdsConStockPendiente(LOTE_VOLCADO);
+                if (!pedidoIds.isEmpty()) {
+                    productoRepository.aplicarStockPendiente(pedidoIds);
+                    pedidoRepository.marcarStockAplicado(pedidoIds);
+                    catalogoCache.invalidarTodo();
+                }
+                return pedidoIds.size();
+            });
+        } while (volcados == LOTE_VOLCADO);
+    }
+
+    // Devuelve el contador vigente con una operación en vuelo más registrada
+    private Contador tomar(Long productoId) {
+        while (true) {
+            Contador contador = contadores.get(productoId);
+            if (contador == null) {
+                synchronized (franja(productoId)) {
+                    contador = contadores.get(productoId);
+                    if (contador == null) {
+                        contador = new Contador(productoRepository.stockDisponible(productoId));
+                        contadores.put(productoId, contador);
+                    }
+                }
+            }
+            if (contador.registrar()) {
+                return contador;
+            }
+            // Retirado entre la lectura y el registro: se busca (o carga) el siguiente
+            contadores.remove(productoId, contador);
+        }
+    }
+
+    private void soltar(Long productoId, Contador contador) {
+        if (contador.enVuelo.decrementAndGet() == 0) {
+            retirarSiCorresponde(productoId, contador);
+        }
+    }
+
+    private void retirarSiCorresponde(Long productoId, Contador contador) {
+        if (contador.obsoleto && contador.enVuelo.compareAndSet(0, RETIRADO)) {
+            contadores.remove(productoId, contador);
+        }
+    }
+
+    private Object franja(Long productoId) {
+        return franjas[Math.floorMod(productoId.hashCode(), FRANJAS)];
+    }
+
+    private static final class Contador {
+
+        final AtomicInteger disponible;
+        // Reservas y devoluciones cuya transacción no terminó; RETIRADO cuando ya no se usa
+        final AtomicInteger enVuelo = new AtomicInteger();
+        volatile boolean obsoleto;
+
+        Contador(int disponible) {
+            this.disponible = new AtomicInteger(disponible);
+        }
+
+        boolean registrar() {
+            while (true) {
+                int actual = enVuelo.get();
+                if (actual == RETIRADO) {
+                    return false;
+                }
+                if (enVuelo.compareAndSet(actual, actual + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        boolean descontar(int cantidad) {
+            while (true) {
+                int actual = disponible.get();
+                if (actual < cantidad) {
+                    return false;
+                }
+                if (disponible.compareAndSet(actual, actual - cantidad)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
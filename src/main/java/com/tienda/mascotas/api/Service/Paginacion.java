@@ -0,0 +1,88 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Model.Pagina;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// Paginación por cursor (keyset): el cursor codifica la clave de orden de la última fila entregada
+@Service
+public class Paginacion {
+
+    @Value("${paginacion.limite-por-defecto:20}")
+    private int limitePorDefecto;
+
+    @Value("${paginacion.limite-maximo:100}")
+    private int limiteMaximo;
+
+    public int limite(Integer solicitado) {
+        if (solicitado == null || solicitado <= 0) {
+            return limitePorDefecto;
+        }
+        return Math.min(solicitado, limiteMaximo);
+    }
+
+    // Se piden limite + 1 filas: si llega la extra, hay página siguiente
+    public <T> Pagina<T> armar(List<T> filas, int limite, Function<T, String> cursorDe) {
+        if (filas.size() <= limite) {
+            return new Pagina<>(filas, null, limite);
+        }
+        List<T> contenido = filas.subList(0, limite);
+        return new Pagina<>(contenido, cursorDe.apply(contenido.get(limite - 1)), limite);
+    }
+
+    // Para listas ya calculadas en memoria (p. ej. resultados ordenados por relevancia)
+    // el cursor es simplemente la posición de inicio de la página siguiente
+    public <T> Pagina<T> recortar(List<T> todos, int desde, int limite) {
+        if (desde >= todos.size()) {
+            return new Pagina<>(List.of(), null, limite);
+        }
+        int hasta = Math.min(desde + limite, todos.size());
+        String siguiente = hasta < todos.size() ? codificar(hasta) : null;
+        return new Pagina<>(todos.subList(desde, hasta), siguiente, limite);
+    }
+
+    public static int desplazamiento(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            int desde = Integer.parseInt(decodificar(cursor, 1)[0]);
+            if (desde < 0) {
+                throw new NumberFormatException();
+            }
+            return desde;
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Cursor inválido");
+        }
+    }
+
+    public static String codificar(Object... partes) {
+        StringBuilder texto = new StringBuilder();
+        for (int i = 0; i < partes.length; i++) {
+            if (i > 0) {
+                texto.append('|');
+            }
+            texto.append(partes[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(texto.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String[] decodificar(String cursor, int cantidadPartes) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = texto.split("\\|", cantidadPartes);
+            if (partes.length != cantidadPartes) {
+                throw new IllegalArgumentException();
+            }
+            return partes;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Cursor inválido");
+        }
+    }
+}
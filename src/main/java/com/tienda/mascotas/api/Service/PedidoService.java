@@ -3,22 +3,36 @@ package com.tienda.mascotas.api.Service;
 
 
 import com.tienda.mascotas.api.Model.DetallePedido;
+import com.tienda.mascotas.api.Model.FiltroPedidos;
+import com.tienda.mascotas.api.Model.Pagina;
 import com.tienda.mascotas.api.Model.Pedido;
 import com.tienda.mascotas.api.Model.Producto;
+import com.tienda.mascotas.api.Model.ResumenPedido;
 import com.tienda.mascotas.api.Repository.PedidoRepository;
 import com.tienda.mascotas.api.Repository.ProductoRepository;
 import com.tienda.mascotas.api.Repository.UsuarioRepository;
+import com.tienda.mascotas.api.config.LecturaReplica;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class PedidoService {
 
+    public static final String RESUMENES = "resumenPedidos";
+
     @Autowired
     private PedidoRepository pedidoRepository;
 
@@ -28,30 +42,111 @@ public class PedidoService {
     @Autowired
     private ProductoRepository productoRepository;
 
+    @Autowired
+    private InventarioEnMemoria inventarioEnMemoria;
+
+    @Autowired
+    private Paginacion paginacion;
+
+    @Autowired
+    private ContadorPedidos contadorPedidos;
+
+    @Autowired
+    private ReporteVentasService reporteVentasService;
+
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @LecturaReplica
     public List<Pedido> obtenerTodos() {
         return pedidoRepository.findAllOrderByFechaPedidoDesc();
     }
 
+    // Orden (fechaPedido DESC, id DESC); el cursor lleva ambos valores de la última fila
+    @LecturaReplica
+    public Pagina<Pedido> obtenerPagina(FiltroPedidos filtro, String cursor, Integer limiteSolicitado) {
+        int limite = paginacion.limite(limiteSolicitado);
+
+        LocalDateTime fecha = null;
+        Long id = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] partes = Paginacion.decodificar(cursor, 2);
+            try {
+                fecha = LocalDateTime.parse(partes[0]);
+                id = Long.valueOf(partes[1]);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Cursor inválido");
+            }
+        }
+        List<Long> ids = pedidoRepository.findIdsPagina(filtro, fecha, id, limite + 1);
+        List<Pedido> pedidos = ids.isEmpty() ? List.of() : pedidoRepository.findCompletosByIdIn(ids);
+        return paginacion.armar(pedidos, limite, p -> Paginacion.codificar(p.getFechaPedido(), p.getId()));
+    }
+
+    @LecturaReplica
     public Optional<Pedido> obtenerPorId(Long id) {
         return pedidoRepository.findById(id);
     }
 
+    @LecturaReplica
     public List<Pedido> obtenerPorUsuario(Long usuarioId) {
         return pedidoRepository.findByUsuarioIdOrderByFechaPedidoDesc(usuarioId);
     }
 
+    // Sin transacción de solo lectura propia: lo que se cachea se lee del primario
+    @Cacheable(RESUMENES)
+    public List<ResumenPedido> obtenerResumenPorUsuario(Long usuarioId) {
+        return pedidoRepository.findResumenesPorUsuario(usuarioId);
+    }
+
+    // Lo que se puede revisar sin ir a la base; la recepción asíncrona lo usa antes de encolar
+    public static void validarDatos(Pedido pedido) {
+        if (pedido == null || pedido.getUsuario() == null || pedido.getUsuario().getId() == null) {
+            throw new RuntimeException("El pedido debe indicar el usuario");
+        }
+        if (pedido.getDetalles() == null || pedido.getDetalles().isEmpty()) {
+            throw new RuntimeException("El pedido debe tener al menos un producto");
+        }
+        for (DetallePedido detalle : pedido.getDetalles()) {
+            if (detalle == null || detalle.getProducto() == null || detalle.getProducto().getId() == null) {
+                throw new RuntimeException("Cada detalle debe indicar el producto");
+            }
+            if (detalle.getCantidad() == null || detalle.getCantidad() <= 0) {
+                throw new RuntimeException("La cantidad debe ser mayor a cero");
+            }
+        }
+    }
+
     @Transactional
     public Pedido crear(Pedido pedido) {
+        validarDatos(pedido);
+
         // Validar usuario
         usuarioRepository.findById(pedido.getUsuario().getId())
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
+        // Cargar todos los productos del pedido en una sola consulta
+        Set<Long> productoIds = new HashSet<>();
+        for (DetallePedido detalle : pedido.getDetalles()) {
+            productoIds.add(detalle.getProducto().getId());
+        }
+        Map<Long, Producto> productos = new HashMap<>();
+        for (Producto producto : productoRepository.findAllByIdIn(productoIds)) {
+            productos.put(producto.getId(), producto);
+        }
+
         // Validar y procesar detalles del pedido
         BigDecimal total = BigDecimal.ZERO;
+        Map<Long, Integer> cantidades = new HashMap<>();
 
         for (DetallePedido detalle : pedido.getDetalles()) {
-            Producto producto = productoRepository.findById(detalle.getProducto().getId())
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado: " + detalle.getProducto().getId()));
+            Producto producto = productos.get(detalle.getProducto().getId());
+            if (producto == null) {
+                throw new RuntimeException("Producto no encontrado: " + detalle.getProducto().getId());
+            }
 
             // Validar stock
             if (producto.getStock() < detalle.getCantidad()) {
@@ -59,6 +154,7 @@ public class PedidoService {
             }
 
             // Establecer precio unitario actual
+            detalle.setProducto(producto);
             detalle.setPrecioUnitario(producto.getPrecio());
             detalle.setPedido(pedido);
 
@@ -67,54 +163,125 @@ public class PedidoService {
             detalle.setSubtotal(subtotal);
             total = total.add(subtotal);
 
-            // Reducir stock
-            producto.setStock(producto.getStock() - detalle.getCantidad());
-            productoRepository.save(producto);
+            cantidades.merge(producto.getId(), detalle.getCantidad(), Integer::sum);
+        }
+
+        // Reservar stock: en memoria si el inventario está habilitado (se vuelca luego),
+        // si no con un UPDATE condicionado por producto, enviados en un solo lote
+        List<Long> sinStock;
+        if (inventarioEnMemoria.isHabilitado()) {
+            sinStock = inventarioEnMemoria.reservar(cantidades);
+            pedido.setStockPendiente(true);
+        } else {
+            sinStock = productoRepository.descontarStock(cantidades);
+        }
+        if (!sinStock.isEmpty()) {
+            throw new RuntimeException("Stock insuficiente para: " + productos.get(sinStock.get(0)).getNombre());
+        }
+        if (!inventarioEnMemoria.isHabilitado()) {
+            catalogoCache.invalidarProductos(productos.values());
         }
 
         pedido.setTotal(total);
         pedido.setFechaPedido(LocalDateTime.now());
 
-        return pedidoRepository.save(pedido);
+        Pedido guardado = pedidoRepository.save(pedido);
+        contadorPedidos.registrarAlta(guardado.getEstado());
+        invalidarResumen(guardado.getUsuario().getId());
+        return guardado;
     }
 
+    @Transactional
     public Pedido actualizarEstado(Long id, Pedido.EstadoPedido nuevoEstado) {
-        Pedido pedido = pedidoRepository.findById(id)
+        // Con el pedido bloqueado, dos cambios simultáneos no leen el mismo estado anterior
+        Pedido pedido = pedidoRepository.findByIdParaActualizar(id)
                 .orElseThrow(() -> new RuntimeException("Pedido no encontrado"));
 
+        // Cancelar devuelve stock y descuenta de los reportes: no es un simple cambio de estado
+        if (nuevoEstado == Pedido.EstadoPedido.CANCELADO) {
+            return cancelar(pedido);
+        }
+        if (pedido.getEstado() == Pedido.EstadoPedido.CANCELADO) {
+            throw new RuntimeException("Un pedido cancelado no puede cambiar de estado");
+        }
+
+        Pedido.EstadoPedido anterior = pedido.getEstado();
         pedido.setEstado(nuevoEstado);
-        return pedidoRepository.save(pedido);
+        Pedido guardado = pedidoRepository.save(pedido);
+        contadorPedidos.registrarCambio(anterior, nuevoEstado);
+        invalidarResumen(guardado.getUsuario().getId());
+        return guardado;
     }
 
+    @LecturaReplica
     public List<Pedido> obtenerPorEstado(Pedido.EstadoPedido estado) {
         return pedidoRepository.findByEstado(estado);
     }
 
+    @LecturaReplica
     public List<Pedido> obtenerPorFechas(LocalDateTime inicio, LocalDateTime fin) {
         return pedidoRepository.findByFechaPedidoBetween(inicio, fin);
     }
 
     @Transactional
     public void cancelarPedido(Long id) {
-        Pedido pedido = pedidoRepository.findById(id)
+        // Bloquea el pedido para no cruzarse con el volcado del inventario en memoria
+        Pedido pedido = pedidoRepository.findByIdParaActualizar(id)
                 .orElseThrow(() -> new RuntimeException("Pedido no encontrado"));
+        cancelar(pedido);
+    }
 
+    // El pedido tiene que venir bloqueado por la transacción actual
+    private Pedido cancelar(Pedido pedido) {
         if (pedido.getEstado() == Pedido.EstadoPedido.ENTREGADO) {
             throw new RuntimeException("No se puede cancelar un pedido entregado");
         }
+        if (pedido.getEstado() == Pedido.EstadoPedido.CANCELADO) {
+            throw new RuntimeException("El pedido ya está cancelado");
+        }
 
         // Devolver stock
+        Map<Long, Integer> cantidades = new HashMap<>();
         for (DetallePedido detalle : pedido.getDetalles()) {
-            Producto producto = detalle.getProducto();
-            producto.setStock(producto.getStock() + detalle.getCantidad());
-            productoRepository.save(producto);
+            cantidades.merge(detalle.getProducto().getId(), detalle.getCantidad(), Integer::sum);
+        }
+        if (Boolean.TRUE.equals(pedido.getStockPendiente())) {
+            // El descuento nunca llegó a la base: basta con no volcarlo
+            pedido.setStockPendiente(false);
+        } else {
+            productoRepository.devolverStock(cantidades);
+            List<Producto> productos = new ArrayList<>();
+            for (DetallePedido detalle : pedido.getDetalles()) {
+                productos.add(detalle.getProducto());
+            }
+            catalogoCache.invalidarProductos(productos);
+        }
+        if (inventarioEnMemoria.isHabilitado()) {
+            inventarioEnMemoria.liberar(cantidades);
         }
 
+        reporteVentasService.registrarCancelacion(pedido);
+        contadorPedidos.registrarCambio(pedido.getEstado(), Pedido.EstadoPedido.CANCELADO);
         pedido.setEstado(Pedido.EstadoPedido.CANCELADO);
-        pedidoRepository.save(pedido);
+        Pedido guardado = pedidoRepository.save(pedido);
+        invalidarResumen(guardado.getUsuario().getId());
+        return guardado;
+    }
+
+    private void invalidarResumen(Long usuarioId) {
+        Transacciones.despuesDelCommit(() -> {
+            Cache resumenes = cacheManager.getCache(RESUMENES);
+            if (resumenes != null) {
+                resumenes.evict(usuarioId);
+            }
+        });
     }
 
     public Long contarPorEstado(Pedido.EstadoPedido estado) {
-        return pedidoRepository.countByEstado(estado);
+        return contadorPedidos.contar(estado);
+    }
+
+    public Map<Pedido.EstadoPedido, Long> contarTodosLosEstados() {
+        return contadorPedidos.todos();
     }
 }
\ No newline at end of file
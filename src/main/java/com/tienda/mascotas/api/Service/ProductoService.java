@@ -2,27 +2,156 @@ package com.tienda.mascotas.api.Service;
 
 
 
+import com.tienda.mascotas.api.Model.CambioProducto;
+import com.tienda.mascotas.api.Model.ConsultaProductos;
+import com.tienda.mascotas.api.Model.Faceta;
+import com.tienda.mascotas.api.Model.FiltroProductos;
+import com.tienda.mascotas.api.Model.Pagina;
 import com.tienda.mascotas.api.Model.Producto;
-import com.tienda.mascotas.api.Repository.CategoriaRepository;
+import com.tienda.mascotas.api.Model.ResultadoCambios;
+import com.tienda.mascotas.api.Repository.ProductoEspecificaciones;
 import com.tienda.mascotas.api.Repository.ProductoRepository;
+import com.tienda.mascotas.api.config.LecturaReplica;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
 public class ProductoService {
 
+    private static final int MAX_CAMBIOS_POR_LOTE = 10000;
+    private static final int LOTE_IDS = 1000;
+
     @Autowired
     private ProductoRepository productoRepository;
 
     @Autowired
-    private CategoriaRepository categoriaRepository;
+    private RegistroCategorias registroCategorias;
+
+    @Autowired
+    private InventarioEnMemoria inventarioEnMemoria;
+
+    @Autowired
+    private Paginacion paginacion;
+
+    @Autowired
+    private CatalogoCache catalogoCache;
 
+    @Autowired
+    private IndiceBusqueda indiceBusqueda;
+
+    @Value("${productos.facetas.limites-precio:10,25,50,100}")
+    private List<BigDecimal> limitesPrecio;
+
+    @LecturaReplica
     public List<Producto> obtenerTodos() {
         return productoRepository.findAll();
     }
 
+    @LecturaReplica
+    public Pagina<Producto> obtenerPagina(String cursor, Integer limiteSolicitado) {
+        int limite = paginacion.limite(limiteSolicitado);
+        List<Producto> filas = productoRepository.findByIdGreaterThanOrderByIdAsc(idDelCursor(cursor), PageRequest.of(0, limite + 1));
+        return paginacion.armar(filas, limite, fila -> Paginacion.codificar(fila.getId()));
+    }
+
+    // Activos con los filtros simples (categoría, stock), paginados por id como obtenerPagina
+    @LecturaReplica
+    public Pagina<Producto> obtenerPaginaFiltrada(FiltroProductos filtro, String cursor, Integer limiteSolicitado) {
+        int limite = paginacion.limite(limiteSolicitado);
+        Long despuesDe = idDelCursor(cursor);
+        Specification<Producto> condiciones = ProductoEspecificaciones.filtrar(filtro, true, true)
+                .and((root, query, cb) -> cb.greaterThan(root.get("id"), despuesDe));
+        List<Producto> filas = productoRepository.findBy(condiciones,
+                consulta -> consulta.sortBy(Sort.by("id")).limit(limite + 1).all());
+        return paginacion.armar(filas, limite, fila -> Paginacion.codificar(fila.getId()));
+    }
+
+    private static Long idDelCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.valueOf(Paginacion.decodificar(cursor, 1)[0]);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Cursor inválido");
+        }
+    }
+
+    // Filtros, orden y paginación por cursor, con las facetas calculadas sobre el mismo filtro
+    @LecturaReplica
+    public ConsultaProductos consultar(FiltroProductos filtro, String cursor, Integer limiteSolicitado) {
+        int limite = paginacion.limite(limiteSolicitado);
+        FiltroProductos.Orden orden = filtro.getOrden() != null ? filtro.getOrden() : FiltroProductos.Orden.RECIENTES;
+
+        Specification<Producto> condiciones = ProductoEspecificaciones.filtrar(filtro, true, true);
+        boolean primeraPagina = cursor == null || cursor.isBlank();
+        if (!primeraPagina) {
+            // El valor va al final: un nombre puede contener el separador del cursor
+            String[] partes = Paginacion.decodificar(cursor, 2);
+            try {
+                condiciones = condiciones.and(ProductoEspecificaciones.despuesDe(orden, Long.valueOf(partes[0]), partes[1]));
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Cursor inválido");
+            }
+        }
+        List<Producto> filas = productoRepository.findBy(condiciones,
+                consulta -> consulta.sortBy(ProductoEspecificaciones.orden(orden)).limit(limite + 1).all());
+        Pagina<Producto> pagina = paginacion.armar(filas, limite, fila -> Paginacion.codificar(fila.getId(), valorDeOrden(fila, orden)));
+
+        // Las facetas no dependen del cursor: solo se cuentan en la primera página
+        if (!primeraPagina) {
+            return new ConsultaProductos(pagina.getContenido(), pagina.getSiguienteCursor(), limite, null, null);
+        }
+        List<Faceta> categorias = productoRepository.contarPorCategoria(ProductoEspecificaciones.filtrar(filtro, false, true));
+        long[] porRango = productoRepository.contarPorRangoPrecio(ProductoEspecificaciones.filtrar(filtro, true, false), limitesPrecio);
+        return new ConsultaProductos(pagina.getContenido(), pagina.getSiguienteCursor(), limite, categorias, rangosPrecio(porRango));
+    }
+
+    private Object valorDeOrden(Producto producto, FiltroProductos.Orden orden) {
+        switch (orden) {
+            case PRECIO_ASC:
+            case PRECIO_DESC:
+                return producto.getPrecio().toPlainString();
+            case NOMBRE:
+                return producto.getNombre();
+            default:
+                return "";
+        }
+    }
+
+    // Claves "desde-hasta" con el límite superior excluido; un extremo vacío es sin límite
+    private List<Faceta> rangosPrecio(long[] cantidades) {
+        List<Faceta> rangos = new ArrayList<>(cantidades.length);
+        for (int i = 0; i < cantidades.length; i++) {
+            String desde = i == 0 ? "" : limitesPrecio.get(i - 1).toPlainString();
+            String hasta = i == limitesPrecio.size() ? "" : limitesPrecio.get(i).toPlainString();
+            String nombre;
+            if (i == 0) {
+                nombre = "Menos de " + hasta;
+            } else if (i == limitesPrecio.size()) {
+                nombre = desde + " o más";
+            } else {
+                nombre = desde + " a " + hasta;
+            }
+            rangos.add(new Faceta(desde + "-" + hasta, nombre, cantidades[i]));
+        }
+        return rangos;
+    }
+
+    @LecturaReplica
     public Optional<Producto> obtenerPorId(Long id) {
         return productoRepository.findById(id);
     }
@@ -32,15 +161,24 @@ public class ProductoService {
             throw new RuntimeException("Debe especificar una categoría");
         }
 
-        categoriaRepository.findById(producto.getCategoria().getId())
-                .orElseThrow(() -> new RuntimeException("Categoría no encontrada"));
+        if (!registroCategorias.existe(producto.getCategoria().getId())) {
+            throw new RuntimeException("Categoría no encontrada");
+        }
 
-        return productoRepository.save(producto);
+        Producto guardado = productoRepository.save(producto);
+        catalogoCache.invalidarProductos(List.of(guardado.getCategoria().getId()), Boolean.TRUE.equals(guardado.getDestacado()));
+        indiceBusqueda.productoGuardado(guardado);
+        return guardado;
     }
 
+    // Con la fila bloqueada: el volcado del inventario en memoria no cambia el stock entre la lectura y la escritura
+    @Transactional
     public Producto actualizar(Long id, Producto productoActualizado) {
-        Producto producto = productoRepository.findById(id)
+        Producto producto = productoRepository.findByIdParaActualizar(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        int stockAnterior = producto.getStock();
+        Long categoriaAnterior = producto.getCategoria().getId();
+        boolean destacadoAntes = Boolean.TRUE.equals(producto.getDestacado());
 
         producto.setNombre(productoActualizado.getNombre());
         producto.setDescripcion(productoActualizado.getDescripcion());
@@ -54,36 +192,89 @@ public class ProductoService {
             producto.setCategoria(productoActualizado.getCategoria());
         }
 
-        return productoRepository.save(producto);
+        Producto guardado = productoRepository.save(producto);
+        stockEscrito(id, stockAnterior, guardado.getStock());
+        Long categoriaNueva = guardado.getCategoria().getId();
+        catalogoCache.invalidarProductos(
+                Objects.equals(categoriaAnterior, categoriaNueva) ? List.of(categoriaNueva) : List.of(categoriaAnterior, categoriaNueva),
+                destacadoAntes || Boolean.TRUE.equals(guardado.getDestacado()));
+        indiceBusqueda.productoGuardado(guardado);
+        return guardado;
     }
 
     public void eliminar(Long id) {
         Producto producto = productoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
         productoRepository.delete(producto); // Elimina físicamente el registro
+        inventarioEnMemoria.invalidar(id);
+        indiceBusqueda.productoEliminado(id);
+        catalogoCache.invalidarProductos(List.of(producto.getCategoria().getId()), Boolean.TRUE.equals(producto.getDestacado()));
     }
 
 
+    @Cacheable(CatalogoCache.ACTIVOS)
     public List<Producto> obtenerActivos() {
         return productoRepository.findByActivoTrue();
     }
 
+    @Cacheable(CatalogoCache.DESTACADOS)
     public List<Producto> obtenerDestacados() {
         return productoRepository.findByDestacadoTrueAndActivoTrue();
     }
 
+    @Cacheable(CatalogoCache.POR_CATEGORIA)
     public List<Producto> obtenerPorCategoria(Long categoriaId) {
         return productoRepository.findByCategoriaIdAndActivoTrue(categoriaId);
     }
 
+    @LecturaReplica
     public List<Producto> buscarPorNombre(String nombre) {
-        return productoRepository.findByNombreContainingIgnoreCaseAndActivoTrue(nombre);
+        List<Long> ids = indiceBusqueda.buscarProductos(nombre);
+        if (ids == null) {
+            return productoRepository.findByNombreContainingIgnoreCaseAndActivoTrue(nombre);
+        }
+        return cargarEnOrden(ids);
+    }
+
+    // Búsqueda por nombre y descripción ordenada por relevancia; el cursor es la posición en el ranking
+    @LecturaReplica
+    public Pagina<Producto> buscar(String texto, String cursor, Integer limiteSolicitado) {
+        int limite = paginacion.limite(limiteSolicitado);
+        int desde = Paginacion.desplazamiento(cursor);
+
+        List<Long> ids = indiceBusqueda.buscarProductos(texto);
+        if (ids == null) {
+            List<Producto> encontrados = productoRepository.findByNombreContainingIgnoreCaseAndActivoTrue(texto);
+            return paginacion.recortar(encontrados, desde, limite);
+        }
+        Pagina<Long> pagina = paginacion.recortar(ids, desde, limite);
+        return new Pagina<>(cargarEnOrden(pagina.getContenido()), pagina.getSiguienteCursor(), limite);
+    }
+
+    // Por tramos: una búsqueda amplia puede traer más ids que los parámetros que admite un IN
+    private List<Producto> cargarEnOrden(List<Long> ids) {
+        Map<Long, Producto> porId = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += LOTE_IDS) {
+            for (Producto producto : productoRepository.findAllByIdIn(ids.subList(i, Math.min(i + LOTE_IDS, ids.size())))) {
+                porId.put(producto.getId(), producto);
+            }
+        }
+        List<Producto> ordenados = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Producto producto = porId.get(id);
+            if (producto != null) {
+                ordenados.add(producto);
+            }
+        }
+        return ordenados;
     }
 
+    @Cacheable(CatalogoCache.DISPONIBLES)
     public List<Producto> obtenerDisponibles() {
         return productoRepository.findProductosDisponibles();
     }
 
+    @Cacheable(CatalogoCache.RECIENTES)
     public List<Producto> obtenerRecientes() {
         return productoRepository.findProductosRecientes();
     }
@@ -92,13 +283,66 @@ public class ProductoService {
         Producto producto = productoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
         producto.setDestacado(destacado);
-        return productoRepository.save(producto);
+        Producto guardado = productoRepository.save(producto);
+        catalogoCache.invalidarProductos(List.of(guardado.getCategoria().getId()), true);
+        return guardado;
     }
 
+    // Sincronización de depósito: todos los cambios en una transacción y un solo lote de UPDATE
+    @Transactional
+    public ResultadoCambios actualizarLote(List<CambioProducto> cambios) {
+        if (cambios == null || cambios.isEmpty()) {
+            throw new RuntimeException("Debe enviar al menos un cambio");
+        }
+        if (cambios.size() > MAX_CAMBIOS_POR_LOTE) {
+            throw new RuntimeException("Se permiten como máximo " + MAX_CAMBIOS_POR_LOTE + " cambios por lote");
+        }
+        for (CambioProducto cambio : cambios) {
+            if (cambio.getId() == null) {
+                throw new RuntimeException("Cada cambio debe indicar el id del producto");
+            }
+            if (cambio.getStock() == null && cambio.getPrecio() == null) {
+                throw new RuntimeException("El cambio del producto " + cambio.getId() + " no indica stock ni precio");
+            }
+            if ((cambio.getStock() != null && cambio.getStock() < 0)
+                    || (cambio.getPrecio() != null && cambio.getPrecio().signum() < 0)) {
+                throw new RuntimeException("Stock y precio no pueden ser negativos (producto " + cambio.getId() + ")");
+            }
+        }
+
+        // El último cambio de cada producto es el que queda en base
+        Map<Long, Integer> stockNuevo = new HashMap<>();
+        for (CambioProducto cambio : cambios) {
+            if (cambio.getStock() != null) {
+                stockNuevo.put(cambio.getId(), cambio.getStock());
+            }
+        }
+        Map<Long, Integer> stockAnterior = productoRepository.bloquearStock(stockNuevo.keySet());
+        List<Long> noEncontrados = productoRepository.aplicarCambios(cambios);
+
+        Map<Long, Integer> diferencias = new HashMap<>();
+        stockAnterior.forEach((id, anterior) -> diferencias.put(id, stockNuevo.get(id) - anterior));
+        inventarioEnMemoria.ajustar(diferencias);
+        catalogoCache.invalidarTodo();
+        return new ResultadoCambios(cambios.size() - noEncontrados.size(), noEncontrados);
+    }
+
+    @Transactional
     public Producto actualizarStock(Long id, Integer nuevoStock) {
-        Producto producto = productoRepository.findById(id)
+        Producto producto = productoRepository.findByIdParaActualizar(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        int stockAnterior = producto.getStock();
         producto.setStock(nuevoStock);
-        return productoRepository.save(producto);
+        Producto guardado = productoRepository.save(producto);
+        stockEscrito(id, stockAnterior, guardado.getStock());
+        catalogoCache.invalidarProductos(List.of(guardado.getCategoria().getId()), Boolean.TRUE.equals(guardado.getDestacado()));
+        return guardado;
+    }
+
+    // El inventario en memoria recibe la diferencia con lo que había en base, no el valor nuevo
+    private void stockEscrito(Long id, int anterior, Integer nuevo) {
+        if (nuevo != null && nuevo != anterior) {
+            inventarioEnMemoria.ajustar(Map.of(id, nuevo - anterior));
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,186 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Model.DetallePedido;
+import com.tienda.mascotas.api.Model.Pedido;
+import com.tienda.mascotas.api.Model.Producto;
+import com.tienda.mascotas.api.Model.SolicitudPedido;
+import com.tienda.mascotas.api.Model.Usuario;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Modo opcional de recepción de pedidos: el controlador solo encola y responde 202;
+// los workers drenan la cola en micro-lotes y crean varios pedidos por transacción.
+@Service
+public class RecepcionPedidos {
+
+    private static final Logger log = LoggerFactory.getLogger(RecepcionPedidos.class);
+
+    @Value("${pedidos.asincrono.enabled:false}")
+    private boolean habilitado;
+
+    @Value("${pedidos.asincrono.capacidad:500}")
+    private int capacidad;
+
+    @Value("${pedidos.asincrono.hilos:1}")
+    private int hilos;
+
+    @Value("${pedidos.asincrono.lote:20}")
+    private int tamanoLote;
+
+    @Value("${pedidos.asincrono.retencion-minutos:30}")
+    private long retencionMinutos;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ConcurrentHashMap<String, SolicitudPedido> solicitudes = new ConcurrentHashMap<>();
+    private BlockingQueue<SolicitudPedido> cola;
+    private ExecutorService trabajadores;
+    private volatile boolean activo;
+
+    @PostConstruct
+    public void iniciar() {
+        if (!habilitado) {
+            return;
+        }
+        cola = new ArrayBlockingQueue<>(capacidad);
+        activo = true;
+        trabajadores = Executors.newFixedThreadPool(hilos, tarea -> {
+            Thread hilo = new Thread(tarea, "recepcion-pedidos");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        for (int i = 0; i < hilos; i++) {
+            trabajadores.submit(this::drenar);
+        }
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        if (trabajadores == null) {
+            return;
+        }
+        activo = false;
+        trabajadores.shutdown();
+        trabajadores.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    // Devuelve null si la cola está llena: el cliente debe reintentar más tarde.
+    // Un cuerpo incompleto se rechaza acá (RuntimeException) y no llega al worker.
+    public SolicitudPedido encolar(Pedido pedido) {
+        PedidoService.validarDatos(pedido);
+        SolicitudPedido solicitud = new SolicitudPedido(pedido);
+        solicitudes.put(solicitud.getId(), solicitud);
+        if (!cola.offer(solicitud)) {
+            solicitudes.remove(solicitud.getId());
+            return null;
+        }
+        return solicitud;
+    }
+
+    public Optional<SolicitudPedido> obtener(String id) {
+        return Optional.ofNullable(solicitudes.get(id));
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void purgar() {
+        LocalDateTime limite = LocalDateTime.now().minusMinutes(retencionMinutos);
+        solicitudes.values().removeIf(s -> s.isFinalizada() && s.getFechaFinalizacion().isBefore(limite));
+    }
+
+    private void drenar() {
+        while (activo || !cola.isEmpty()) {
+            try {
+                SolicitudPedido primera = cola.poll(1, TimeUnit.SECONDS);
+                if (primera == null) {
+                    continue;
+                }
+                List<SolicitudPedido> lote = new ArrayList<>();
+                lote.add(primera);
+                cola.drainTo(lote, tamanoLote - 1);
+                procesar(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // El worker no debe morir por un error inesperado
+                log.error("Error inesperado al procesar pedidos encolados", e);
+            }
+        }
+    }
+
+    private void procesar(List<SolicitudPedido> lote) {
+        lote.forEach(SolicitudPedido::procesando);
+        try {
+            List<Long> ids = transactionTemplate.execute(status -> {
+                List<Long> creados = new ArrayList<>();
+                for (SolicitudPedido solicitud : lote) {
+                    creados.add(pedidoService.crear(copiar(solicitud.getPedido())).getId());
+                }
+                return creados;
+            });
+            for (int i = 0; i < lote.size(); i++) {
+                lote.get(i).completar(ids.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (lote.size() == 1) {
+                lote.get(0).rechazar(e.getMessage());
+                return;
+            }
+            // Un pedido inválido revierte todo el lote: se reintenta cada uno por separado
+            for (SolicitudPedido solicitud : lote) {
+                procesar(List.of(solicitud));
+            }
+        }
+    }
+
+    // Cada intento trabaja sobre una copia: un intento revertido deja ids asignados en las entidades
+    private Pedido copiar(Pedido original) {
+        Usuario usuario = new Usuario();
+        usuario.setId(original.getUsuario().getId());
+
+        List<DetallePedido> detalles = new ArrayList<>();
+        for (DetallePedido detalleOriginal : original.getDetalles()) {
+            Producto producto = new Producto();
+            producto.setId(detalleOriginal.getProducto().getId());
+
+            DetallePedido detalle = new DetallePedido();
+            detalle.setProducto(producto);
+            detalle.setCantidad(detalleOriginal.getCantidad());
+            detalles.add(detalle);
+        }
+
+        Pedido pedido = new Pedido();
+        pedido.setUsuario(usuario);
+        pedido.setDireccionEnvio(original.getDireccionEnvio());
+        pedido.setMetodoPago(original.getMetodoPago());
+        pedido.setNotas(original.getNotas());
+        pedido.setDetalles(detalles);
+        return pedido;
+    }
+}
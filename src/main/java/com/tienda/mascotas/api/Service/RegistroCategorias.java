@@ -0,0 +1,153 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Model.Categoria;
+import com.tienda.mascotas.api.Repository.CategoriaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+// Todas las categorías en memoria (son pocas decenas). Cada escritura confirmada vuelve a leer
+// la tabla y reemplaza la instantánea completa: las lecturas no toman candados ni van a la base,
+// salvo cuando no encuentran la categoría y la buscan ahí por si la creó otra instancia.
+// Categoria es mutable: hacia afuera solo salen copias, nunca los objetos de la instantánea.
+@Service
+public class RegistroCategorias {
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    private volatile Instantanea instantanea;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        recargar();
+    }
+
+    // Llamar después de cualquier escritura sobre categorías
+    public void categoriasModificadas() {
+        Transacciones.despuesDelCommit(this::recargar);
+    }
+
+    public List<Categoria> todas() {
+        return copias(instantanea().todas());
+    }
+
+    public List<Categoria> activas() {
+        return copias(instantanea().activas());
+    }
+
+    public Optional<Categoria> porId(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Categoria categoria = instantanea().porId().get(id);
+        if (categoria != null) {
+            return Optional.of(copia(categoria));
+        }
+        return encontradaEnBase(categoriaRepository.findById(id));
+    }
+
+    public boolean existe(Long id) {
+        if (id == null) {
+            return false;
+        }
+        if (instantanea().porId().containsKey(id)) {
+            return true;
+        }
+        if (categoriaRepository.existsById(id)) {
+            categoriasModificadas();
+            return true;
+        }
+        return false;
+    }
+
+    public boolean existeNombre(String nombre) {
+        return nombre != null && instantanea().porNombre().containsKey(nombre);
+    }
+
+    // Sin distinguir mayúsculas ni espacios en los extremos, para archivos cargados a mano
+    public Optional<Categoria> porNombreAproximado(String nombre) {
+        Categoria categoria = instantanea().porNombreNormalizado().get(normalizar(nombre));
+        if (categoria != null) {
+            return Optional.of(copia(categoria));
+        }
+        return encontradaEnBase(categoriaRepository.findByNombreNormalizado(normalizar(nombre)).stream().findFirst());
+    }
+
+    // Lo que no está en la instantánea pudo crearlo otra instancia: si la base lo tiene, se recarga
+    // como tras una escritura, después del commit para no tomar cambios sin confirmar.
+    private Optional<Categoria> encontradaEnBase(Optional<Categoria> enBase) {
+        if (enBase.isPresent()) {
+            categoriasModificadas();
+        }
+        return enBase.map(RegistroCategorias::copia);
+    }
+
+    private Instantanea instantanea() {
+        Instantanea actual = instantanea;
+        if (actual == null) {
+            recargar();
+            actual = instantanea;
+        }
+        return actual;
+    }
+
+    // Sincronizado para que una recarga más vieja no pise a una más nueva
+    private synchronized void recargar() {
+        List<Categoria> todas = new ArrayList<>();
+        for (Categoria categoria : categoriaRepository.findAll()) {
+            // Copias sin la colección de productos: la instantánea no comparte entidades administradas
+            todas.add(copia(categoria));
+        }
+        todas.sort(Comparator.comparing(Categoria::getId));
+
+        List<Categoria> activas = new ArrayList<>();
+        Map<Long, Categoria> porId = new HashMap<>();
+        Map<String, Categoria> porNombre = new HashMap<>();
+        Map<String, Categoria> porNombreNormalizado = new HashMap<>();
+        for (Categoria categoria : todas) {
+            if (Boolean.TRUE.equals(categoria.getActiva())) {
+                activas.add(categoria);
+            }
+            porId.put(categoria.getId(), categoria);
+            porNombre.put(categoria.getNombre(), categoria);
+            porNombreNormalizado.putIfAbsent(normalizar(categoria.getNombre()), categoria);
+        }
+
+        instantanea = new Instantanea(List.copyOf(todas), List.copyOf(activas), Map.copyOf(porId),
+                Map.copyOf(porNombre), Map.copyOf(porNombreNormalizado));
+    }
+
+    private static Categoria copia(Categoria categoria) {
+        return new Categoria(categoria.getId(), categoria.getNombre(), categoria.getDescripcion(),
+                categoria.getActiva(), null);
+    }
+
+    private static List<Categoria> copias(List<Categoria> categorias) {
+        List<Categoria> copias = new ArrayList<>(categorias.size());
+        for (Categoria categoria : categorias) {
+            copias.add(copia(categoria));
+        }
+        return copias;
+    }
+
+    private static String normalizar(String nombre) {
+        return nombre == null ? "" : nombre.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Instantanea(List<Categoria> todas,
+                               List<Categoria> activas,
+                               Map<Long, Categoria> porId,
+                               Map<String, Categoria> porNombre,
+                               Map<String, Categoria> porNombreNormalizado) {
+    }
+}
@@ -0,0 +1,162 @@
+package com.tienda.mascotas.api.Service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Guarda la primera respuesta de cada Idempotency-Key y la repite en los reintentos.
+// La clave vale dentro del alcance de quien la envía y solo para el mismo cuerpo: otro cliente
+// con la misma clave no recibe esa respuesta, y el mismo cliente con otro cuerpo recibe 422.
+// Acotado por cantidad (se descarta la más antigua ya terminada) y por tiempo de vida.
+@Service
+public class RegistroIdempotencia {
+
+    public static final String CABECERA = "Idempotency-Key";
+
+    @Value("${idempotencia.max-entradas:10000}")
+    private int maxEntradas;
+
+    @Value("${idempotencia.ttl-minutos:60}")
+    private long ttlMinutos;
+
+    @Value("${idempotencia.espera-segundos:30}")
+    private long esperaSegundos;
+
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entrada> masAntigua) {
+            // Las que siguen en proceso no se descartan: sus reintentos tienen que esperarlas
+            Iterator<Entrada> it = values().iterator();
+            while (size() > maxEntradas && it.hasNext()) {
+                if (it.next().resultado.isDone()) {
+                    it.remove();
+                }
+            }
+            return false;
+        }
+    };
+
+    // alcance: quien envía la solicitud; cuerpo: representación canónica de lo que se pide
+    public ResponseEntity<?> ejecutar(String alcance, String clave, String cuerpo, Supplier<ResponseEntity<?>> operacion) {
+        String id = alcance + '\n' + clave;
+        String huella = huella(cuerpo);
+        Entrada entrada;
+        boolean primera;
+        synchronized (entradas) {
+            entrada = entradas.get(id);
+            if (entrada != null && entrada.expirada(System.currentTimeMillis(), ttlMinutos)) {
+                entradas.remove(id);
+                entrada = null;
+            }
+            primera = entrada == null;
+            if (primera) {
+                entrada = new Entrada(huella);
+                entradas.put(id, entrada);
+            }
+        }
+
+        if (!primera && !entrada.huella.equals(huella)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body("La Idempotency-Key ya se usó con otro cuerpo");
+        }
+        if (!primera) {
+            return esperar(alcance, clave, cuerpo, entrada, operacion);
+        }
+
+        try {
+            ResponseEntity<?> respuesta = operacion.get();
+            // Los errores transitorios (cola llena, etc.) no se fijan: el reintento debe volver a ejecutarse
+            if (respuesta.getStatusCode().is5xxServerError()) {
+                olvidar(id, entrada);
+            }
+            entrada.resultado.complete(respuesta);
+            return respuesta;
+        } catch (RuntimeException e) {
+            olvidar(id, entrada);
+            entrada.resultado.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void purgar() {
+        long ahora = System.currentTimeMillis();
+        synchronized (entradas) {
+            Iterator<Entrada> it = entradas.values().iterator();
+            while (it.hasNext()) {
+                Entrada entrada = it.next();
+                if (!entrada.resultado.isDone()) {
+                    continue; // en proceso: se conserva, pero detrás puede haber vencidas
+                }
+                if (!entrada.expirada(ahora, ttlMinutos)) {
+                    break; // orden de inserción: las siguientes son más nuevas
+                }
+                it.remove();
+            }
+        }
+    }
+
+    private ResponseEntity<?> esperar(String alcance, String clave, String cuerpo, Entrada entrada,
+                                      Supplier<ResponseEntity<?>> operacion) {
+        try {
+            ResponseEntity<?> original = entrada.resultado.get(esperaSegundos, TimeUnit.SECONDS);
+            return ResponseEntity.status(original.getStatusCode())
+                    .headers(original.getHeaders())
+                    .header("Idempotent-Replayed", "true")
+                    .body(original.getBody());
+        } catch (ExecutionException e) {
+            // La primera ejecución falló sin respuesta: esta pasa a ser la primera
+            return ejecutar(alcance, clave, cuerpo, operacion);
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("La solicitud original con esta Idempotency-Key sigue en proceso");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Solicitud interrumpida");
+        }
+    }
+
+    private void olvidar(String id, Entrada entrada) {
+        synchronized (entradas) {
+            entradas.remove(id, entrada);
+        }
+    }
+
+    private static String huella(String cuerpo) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha.digest(cuerpo.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Entrada {
+        private final long creada = System.currentTimeMillis();
+        private final String huella;
+        private final CompletableFuture<ResponseEntity<?>> resultado = new CompletableFuture<>();
+
+        private Entrada(String huella) {
+            this.huella = huella;
+        }
+
+        private boolean expirada(long ahora, long ttlMinutos) {
+            return resultado.isDone() && ahora - creada > TimeUnit.MINUTES.toMillis(ttlMinutos);
+        }
+    }
+}
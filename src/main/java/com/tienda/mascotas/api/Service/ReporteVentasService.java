@@ -0,0 +1,68 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Model.Pedido;
+import com.tienda.mascotas.api.Repository.PedidoRepository;
+import com.tienda.mascotas.api.Repository.VentaDiariaRepository;
+import com.tienda.mascotas.api.config.LecturaReplica;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Mantiene ventas_diarias al día de forma incremental: una tarea suma los pedidos nuevos
+// por lotes y las cancelaciones restan lo ya sumado dentro de su propia transacción
+@Service
+public class ReporteVentasService {
+
+    private static final int LOTE = 500;
+
+    @Autowired
+    private VentaDiariaRepository ventaDiariaRepository;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Scheduled(fixedDelayString = "${reportes.ventas.contabilizar-ms:10000}")
+    public void contabilizar() {
+        int procesados;
+        do {
+            procesados = transactionTemplate.execute(status -> {
+                List<Long> ids = pedidoRepository.findIdsSinContabilizar(LOTE);
+                if (!ids.isEmpty()) {
+                    ventaDiariaRepository.acumular(ids, 1);
+                    pedidoRepository.marcarContabilizados(ids);
+                }
+                return ids.size();
+            });
+        } while (procesados == LOTE);
+    }
+
+    // Se llama con el pedido bloqueado y antes de pasarlo a CANCELADO
+    public void registrarCancelacion(Pedido pedido) {
+        if (Boolean.TRUE.equals(pedido.getContabilizado())) {
+            ventaDiariaRepository.acumular(List.of(pedido.getId()), -1);
+        }
+        pedido.setContabilizado(true);
+    }
+
+    @LecturaReplica
+    public List<VentaDiariaRepository.VentasPorDia> ventasPorDia(LocalDate inicio, LocalDate fin) {
+        return ventaDiariaRepository.sumarPorDia(inicio, fin);
+    }
+
+    @LecturaReplica
+    public List<VentaDiariaRepository.VentasPorProducto> ventasPorProducto(LocalDate inicio, LocalDate fin) {
+        return ventaDiariaRepository.sumarPorProducto(inicio, fin);
+    }
+
+    @LecturaReplica
+    public List<VentaDiariaRepository.VentasPorCategoria> ventasPorCategoria(LocalDate inicio, LocalDate fin) {
+        return ventaDiariaRepository.sumarPorCategoria(inicio, fin);
+    }
+}
@@ -0,0 +1,143 @@
+package com.tienda.mascotas.api.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+// Cuerpos JSON ya serializados (y comprimidos) de las respuestas más pedidas del catálogo.
+// Se arman una vez por versión del catálogo; mientras no cambie, cada GET solo escribe bytes.
+@Service
+public class RespuestasCatalogo {
+
+    @Autowired
+    private VersionCatalogo versionCatalogo;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${catalogo.respuestas.gzip:true}")
+    private boolean gzipHabilitado;
+
+    // Mismo vencimiento que las cachés del catálogo: lo que cambia sin pasar por una escritura
+    // del catálogo (p. ej. los "recientes") no queda congelado mientras no haya escrituras
+    @Value("${catalogo.respuestas.ttl-segundos:600}")
+    private long ttlSegundos;
+
+    Ticker reloj = Ticker.systemTicker();
+
+    private Cache<String, Cuerpo> cuerpos;
+
+    @PostConstruct
+    public void iniciar() {
+        cuerpos = Caffeine.newBuilder()
+                .maximumSize(256)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .ticker(reloj)
+                .build();
+    }
+
+    public ResponseEntity<byte[]> responder(String clave, WebRequest request, Supplier<?> contenido) {
+        boolean gzip = gzipHabilitado && aceptaGzip(request);
+        if (request instanceof ServletWebRequest servlet && servlet.getResponse() != null) {
+            servlet.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (versionCatalogo.noModificado(request, gzip ? "-gz" : "")) {
+            return null;
+        }
+
+        Cuerpo cuerpo = obtener(clave, contenido);
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return respuesta.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cuerpo.gzip);
+        }
+        return respuesta.body(cuerpo.json);
+    }
+
+    private Cuerpo obtener(String clave, Supplier<?> contenido) {
+        // La versión se lee antes que los datos: si cambian mientras tanto, el próximo GET rearma
+        long version = versionCatalogo.actual();
+        Cuerpo cuerpo = cuerpos.getIfPresent(clave);
+        if (cuerpo != null && cuerpo.version >= version) {
+            return cuerpo;
+        }
+        // Un solo hilo rearma cada clave; los demás esperan ese resultado
+        return cuerpos.asMap().compute(clave, (k, actual) ->
+                actual != null && actual.version >= version ? actual : armar(version, contenido.get()));
+    }
+
+    private Cuerpo armar(long version, Object contenido) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(contenido);
+            return new Cuerpo(version, json, gzipHabilitado ? comprimir(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("No se pudo serializar el catálogo", e);
+        }
+    }
+
+    private byte[] comprimir(byte[] json) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return salida.toByteArray();
+    }
+
+    // Respeta los q-values: "gzip;q=0" rechaza gzip y "*" lo acepta si no aparece por nombre
+    static boolean aceptaGzip(WebRequest request) {
+        String aceptadas = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (aceptadas == null) {
+            return false;
+        }
+        Boolean gzip = null;
+        boolean comodin = false;
+        for (String parte : aceptadas.split(",")) {
+            String[] partes = parte.split(";");
+            String codificacion = partes[0].trim().toLowerCase(Locale.ROOT);
+            boolean aceptada = calidad(partes) > 0;
+            if (codificacion.equals("gzip") || codificacion.equals("x-gzip")) {
+                gzip = aceptada;
+            } else if (codificacion.equals("*")) {
+                comodin = aceptada;
+            }
+        }
+        return gzip != null ? gzip : comodin;
+    }
+
+    private static double calidad(String[] partes) {
+        for (int i = 1; i < partes.length; i++) {
+            String parametro = partes[i].trim().toLowerCase(Locale.ROOT);
+            if (parametro.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parametro.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private record Cuerpo(long version, byte[] json, byte[] gzip) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.tienda.mascotas.api.Service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+
+// Acciones en memoria que solo deben aplicarse según cómo termine la transacción actual
+public final class Transacciones {
+
+    private Transacciones() {
+    }
+
+    public static void despuesDelCommit(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    public static void siSeRevierte(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    accion.run();
+                }
+            }
+        });
+    }
+
+    // Recibe true si la transacción se confirmó; sin transacción activa corre enseguida como confirmada
+    public static void alTerminar(Consumer<Boolean> accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                accion.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+}
@@ -1,26 +1,91 @@
 package com.tienda.mascotas.api.Service;
 
+import com.tienda.mascotas.api.Model.Pagina;
 import com.tienda.mascotas.api.Model.Usuario;
 import com.tienda.mascotas.api.Repository.UsuarioRepository;
+import com.tienda.mascotas.api.config.LecturaReplica;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class UsuarioService {
 
+    private static final Logger log = LoggerFactory.getLogger(UsuarioService.class);
+    private static final int LOTE_IDS = 1000;
+
     @Autowired
     private UsuarioRepository usuarioRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;  // ← Cambio aquí
+    private VerificadorContrasenas verificadorContrasenas;
+
+    @Autowired
+    private FiltroEmails filtroEmails;
+
+    @Autowired
+    private Paginacion paginacion;
+
+    @Autowired
+    private IndiceBusqueda indiceBusqueda;
+
+    // Los hashes recalculados se guardan en un hilo propio: el UPDATE no deja a un hilo de BCrypt
+    // esperando conexión. Con la cola llena se descarta y el próximo login lo vuelve a intentar.
+    private ThreadPoolExecutor rehashes;
+
+    @PostConstruct
+    public void iniciar() {
+        rehashes = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(256),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "rehash-contrasenas");
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void detener() {
+        rehashes.shutdown();
+    }
 
+    @LecturaReplica
     public List<Usuario> obtenerTodos() {
         return usuarioRepository.findAll();
     }
 
+    @LecturaReplica
+    public Pagina<Usuario> obtenerPagina(String cursor, Integer limiteSolicitado) {
+        int limite = paginacion.limite(limiteSolicitado);
+        Long despuesDe = 0L;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                despuesDe = Long.valueOf(Paginacion.decodificar(cursor, 1)[0]);
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Cursor inválido");
+            }
+        }
+        List<Usuario> filas = usuarioRepository.findByIdGreaterThanOrderByIdAsc(despuesDe, PageRequest.of(0, limite + 1));
+        return paginacion.armar(filas, limite, fila -> Paginacion.codificar(fila.getId()));
+    }
+
+    @LecturaReplica
     public Optional<Usuario> obtenerPorId(Long id) {
         return usuarioRepository.findById(id);
     }
@@ -30,7 +95,8 @@ public class UsuarioService {
     }
 
     public Usuario crear(Usuario usuario) {
-        if (usuarioRepository.existsByEmail(usuario.getEmail())) {
+        // Un email nuevo casi nunca pasa por la base antes del INSERT
+        if (filtroEmails.existe(usuario.getEmail())) {
             throw new RuntimeException("El email ya está registrado");
         }
 
@@ -39,8 +105,20 @@ public class UsuarioService {
             throw new RuntimeException("La contraseña es obligatoria");
         }
 
-        usuario.setPassword(passwordEncoder.encode(usuario.getPassword()));
-        return usuarioRepository.save(usuario);
+        usuario.setPassword(verificadorContrasenas.codificar(usuario.getPassword()));
+        Usuario guardado;
+        try {
+            guardado = usuarioRepository.save(usuario);
+        } catch (DataIntegrityViolationException e) {
+            // Alta simultánea con el mismo email: la restricción única es la que decide
+            if (usuarioRepository.existsByEmail(usuario.getEmail())) {
+                throw new RuntimeException("El email ya está registrado");
+            }
+            throw e;
+        }
+        filtroEmails.agregar(guardado.getEmail());
+        indiceBusqueda.usuarioGuardado(guardado);
+        return guardado;
     }
 
     public Usuario actualizar(Long id, Usuario usuarioActualizado) {
@@ -53,10 +131,12 @@ public class UsuarioService {
         usuario.setDireccion(usuarioActualizado.getDireccion());
 
         if (usuarioActualizado.getPassword() != null && !usuarioActualizado.getPassword().isEmpty()) {
-            usuario.setPassword(passwordEncoder.encode(usuarioActualizado.getPassword()));
+            usuario.setPassword(verificadorContrasenas.codificar(usuarioActualizado.getPassword()));
         }
 
-        return usuarioRepository.save(usuario);
+        Usuario guardado = usuarioRepository.save(usuario);
+        indiceBusqueda.usuarioGuardado(guardado);
+        return guardado;
     }
 
     public void eliminarPermanente(Long id) {
@@ -65,14 +145,53 @@ public class UsuarioService {
 
         // Eliminar de la base de datos
         usuarioRepository.delete(usuario);
+        indiceBusqueda.usuarioEliminado(id);
     }
 
+    @LecturaReplica
     public List<Usuario> obtenerActivos() {
         return usuarioRepository.findByActivoTrue();
     }
 
+    @LecturaReplica
     public List<Usuario> buscarPorNombre(String nombre) {
-        return usuarioRepository.findByNombreContainingIgnoreCaseOrApellidoContainingIgnoreCase(nombre, nombre);
+        List<Long> ids = indiceBusqueda.buscarUsuarios(nombre);
+        if (ids == null) {
+            return usuarioRepository.findByNombreContainingIgnoreCaseOrApellidoContainingIgnoreCase(nombre, nombre);
+        }
+        return cargarEnOrden(ids);
+    }
+
+    @LecturaReplica
+    public Pagina<Usuario> buscar(String texto, String cursor, Integer limiteSolicitado) {
+        int limite = paginacion.limite(limiteSolicitado);
+        int desde = Paginacion.desplazamiento(cursor);
+
+        List<Long> ids = indiceBusqueda.buscarUsuarios(texto);
+        if (ids == null) {
+            List<Usuario> encontrados = usuarioRepository.findByNombreContainingIgnoreCaseOrApellidoContainingIgnoreCase(texto, texto);
+            return paginacion.recortar(encontrados, desde, limite);
+        }
+        Pagina<Long> pagina = paginacion.recortar(ids, desde, limite);
+        return new Pagina<>(cargarEnOrden(pagina.getContenido()), pagina.getSiguienteCursor(), limite);
+    }
+
+    // Por tramos: una búsqueda amplia puede traer más ids que los parámetros que admite un IN
+    private List<Usuario> cargarEnOrden(List<Long> ids) {
+        Map<Long, Usuario> porId = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += LOTE_IDS) {
+            for (Usuario usuario : usuarioRepository.findAllById(ids.subList(i, Math.min(i + LOTE_IDS, ids.size())))) {
+                porId.put(usuario.getId(), usuario);
+            }
+        }
+        List<Usuario> ordenados = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Usuario usuario = porId.get(id);
+            if (usuario != null) {
+                ordenados.add(usuario);
+            }
+        }
+        return ordenados;
     }
 
     public Usuario cambiarRole(Long id, Usuario.Role nuevoRole) {
@@ -82,9 +201,30 @@ public class UsuarioService {
         return usuarioRepository.save(usuario);
     }
 
-    public boolean validarCredenciales(String email, String password) {
-        Optional<Usuario> usuario = usuarioRepository.findByEmail(email);
-        return usuario.isPresent() &&
-                passwordEncoder.matches(password, usuario.get().getPassword());
+    // Una sola consulta por email; la comparación BCrypt corre en el pool de VerificadorContrasenas
+    // y el hash recalculado se guarda después, sin demorar la respuesta
+    public CompletableFuture<Optional<Usuario>> autenticar(String email, String password) {
+        Optional<Usuario> usuario = email == null ? Optional.empty() : usuarioRepository.findByEmail(email);
+        String hash = usuario.map(Usuario::getPassword).orElse(null);
+        return verificadorContrasenas.verificar(password, hash).thenApply(verificacion -> {
+            if (!verificacion.valida()) {
+                return Optional.empty();
+            }
+            if (verificacion.hashNuevo() != null) {
+                Long usuarioId = usuario.get().getId();
+                rehashes.execute(() -> actualizarHash(usuarioId, hash, verificacion.hashNuevo()));
+            }
+            return usuario;
+        });
+    }
+
+    private void actualizarHash(Long usuarioId, String anterior, String nuevo) {
+        try {
+            // Si la contraseña cambió mientras tanto, el UPDATE no toca nada
+            usuarioRepository.actualizarPassword(usuarioId, anterior, nuevo);
+        } catch (DataAccessException e) {
+            // El login ya es válido; se reintentará en el próximo
+            log.warn("No se pudo actualizar el hash de la contraseña del usuario {}", usuarioId, e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,115 @@
+package com.tienda.mascotas.api.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// BCrypt fuera de los hilos de Tomcat: un pool chico con cola acotada. Si la cola está llena
+// la tarea se rechaza enseguida (RejectedExecutionException) en lugar de acumular espera,
+// así una ráfaga de logins no deja sin hilos al resto de la API.
+@Service
+public class VerificadorContrasenas {
+
+    // Cero: la mitad de los núcleos disponibles
+    @Value("${seguridad.bcrypt.hilos:0}")
+    private int hilos;
+
+    @Value("${seguridad.bcrypt.cola:64}")
+    private int capacidadCola;
+
+    // Al validar, vuelve a codificar las contraseñas guardadas con un costo menor al configurado
+    @Value("${seguridad.bcrypt.rehash:false}")
+    private boolean rehash;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private ThreadPoolExecutor ejecutor;
+
+    // Hash descartable para que un email inexistente tarde lo mismo que una contraseña incorrecta
+    private String hashFicticio;
+
+    @PostConstruct
+    public void iniciar() {
+        int cantidad = hilos > 0 ? hilos : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger numero = new AtomicInteger();
+        ejecutor = new ThreadPoolExecutor(cantidad, cantidad, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "bcrypt-" + numero.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        hashFicticio = passwordEncoder.encode("contraseña-ficticia");
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    // Falla con RejectedExecutionException si no hay lugar en la cola
+    public <T> CompletableFuture<T> ejecutar(Supplier<T> tarea) {
+        try {
+            return CompletableFuture.supplyAsync(tarea, ejecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // hash null: el usuario no existe, se compara igual contra el ficticio y no es válida.
+    // El rehash corre en el mismo hilo: esperar otra tarea del pool podría bloquearlo.
+    public CompletableFuture<Verificacion> verificar(String password, String hash) {
+        if (password == null) {
+            return CompletableFuture.completedFuture(new Verificacion(false, null));
+        }
+        return ejecutar(() -> {
+            boolean valida = passwordEncoder.matches(password, hash != null ? hash : hashFicticio) && hash != null;
+            String hashNuevo = valida && rehash && passwordEncoder.upgradeEncoding(hash)
+                    ? passwordEncoder.encode(password)
+                    : null;
+            return new Verificacion(valida, hashNuevo);
+        });
+    }
+
+    // Para altas y cambios de contraseña, que siguen siendo síncronos
+    public String codificar(String password) {
+        try {
+            return ejecutar(() -> passwordEncoder.encode(password)).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Solicitud interrumpida");
+        }
+    }
+
+    public static boolean esRechazo(Throwable error) {
+        Throwable actual = error;
+        while (actual instanceof CompletionException || actual instanceof ExecutionException) {
+            actual = actual.getCause();
+        }
+        return actual instanceof RejectedExecutionException;
+    }
+
+    // hashNuevo solo viene cuando la contraseña es válida y corresponde guardarla con el costo actual
+    public record Verificacion(boolean valida, String hashNuevo) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.tienda.mascotas.api.Service;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Versión del catálogo (productos y categorías): avanza con cada escritura confirmada.
+// Permite responder 304 a los GET condicionales sin consultar la base ni serializar.
+@Service
+public class VersionCatalogo {
+
+    // Distingue arranques: tras reiniciar, un ETag anterior no debe coincidir por casualidad
+    private final String instancia = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    public void avanzar() {
+        version.incrementAndGet();
+    }
+
+    public long actual() {
+        return version.get();
+    }
+
+    // true si el cliente ya tiene la versión actual: la respuesta 304 queda armada
+    public boolean noModificado(WebRequest request) {
+        return noModificado(request, "");
+    }
+
+    // La variante distingue representaciones del mismo recurso (p. ej. el cuerpo comprimido)
+    public boolean noModificado(WebRequest request, String variante) {
+        if (request instanceof ServletWebRequest servlet && servlet.getResponse() != null) {
+            // Obliga a revalidar en cada uso en lugar del no-store que agrega Spring Security
+            servlet.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        }
+        // Solo ETag: Last-Modified tiene resolución de un segundo y dos escrituras en el mismo
+        // segundo harían que If-Modified-Since devuelva 304 con datos viejos
+        String etag = "\"" + instancia + "-" + version.get() + variante + "\"";
+        return request.checkNotModified(etag);
+    }
+}
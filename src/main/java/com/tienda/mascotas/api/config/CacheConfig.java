@@ -0,0 +1,32 @@
+package com.tienda.mascotas.api.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tienda.mascotas.api.Service.PedidoService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// Las cachés (Caffeine) y sus límites se definen en application.properties
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // Una entrada por cliente: necesita más lugar que las del catálogo. Vence por escritura y no por
+    // acceso: un llenado que empezó antes de un commit puede guardarse después de su evict, y así
+    // esa lista vieja dura como mucho la vigencia aunque el cliente la siga leyendo.
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> cacheResumenPedidos(
+            @Value("${pedidos.resumen.max-usuarios:10000}") long maxUsuarios,
+            @Value("${pedidos.resumen.vigencia-minutos:5}") long vigenciaMinutos) {
+        return cacheManager -> cacheManager.registerCustomCache(PedidoService.RESUMENES, Caffeine.newBuilder()
+                .maximumSize(maxUsuarios)
+                .expireAfterWrite(Duration.ofMinutes(vigenciaMinutos))
+                .recordStats()
+                .build());
+    }
+}
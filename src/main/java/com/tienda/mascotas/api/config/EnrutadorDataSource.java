@@ -0,0 +1,51 @@
+package com.tienda.mascotas.api.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+// Réplica para las transacciones readOnly abiertas por un método @LecturaReplica mientras esté
+// al día; si no, o si falla al conectar, la lectura se hace en el primario
+class EnrutadorDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARIO = "primario";
+    private static final String REPLICA = "replica";
+
+    private final DataSource primario;
+    private final MonitorReplica monitor;
+
+    EnrutadorDataSource(DataSource primario, DataSource replica, MonitorReplica monitor) {
+        this.primario = primario;
+        this.monitor = monitor;
+        setTargetDataSources(Map.of(PRIMARIO, primario, REPLICA, replica));
+        setDefaultTargetDataSource(primario);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        // Los repositorios de Spring Data abren su propia transacción readOnly en cada consulta suelta
+        // (findById antes de un save, existsByEmail, recargas de cachés): esas no llevan la marca y
+        // leen lo último escrito. Un método marcado dentro de una transacción de escritura tampoco.
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && MarcaLecturaReplica.activa()
+                && monitor.isDisponible()
+                ? REPLICA : PRIMARIO;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!REPLICA.equals(determineCurrentLookupKey())) {
+            return primario.getConnection();
+        }
+        try {
+            return super.getConnection();
+        } catch (SQLException e) {
+            monitor.marcarCaida(e);
+            return primario.getConnection();
+        }
+    }
+}
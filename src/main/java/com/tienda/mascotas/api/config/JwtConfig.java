@@ -0,0 +1,114 @@
+package com.tienda.mascotas.api.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtIssuerValidator;
+import org.springframework.security.oauth2.jwt.JwtTimestampValidator;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// Tokens HS256 firmados con jwt.secret. Sin secreto configurado se genera uno al azar:
+// sirve para desarrollo, pero los tokens dejan de valer al reiniciar. En prod no arranca sin secreto.
+@Configuration
+public class JwtConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtConfig.class);
+
+    public static final String EMISOR = "api-tienda-mascotas";
+    public static final String CLAIM_ROLE = "role";
+
+    @Bean
+    public SecretKey claveJwt(@Value("${jwt.secret:}") String secreto, Environment entorno) {
+        byte[] bytes;
+        if (secreto.isBlank()) {
+            // Con varias instancias o tras un reinicio, una clave aleatoria invalidaría los tokens emitidos
+            if (entorno.acceptsProfiles(Profiles.of("prod"))) {
+                throw new IllegalStateException("jwt.secret es obligatorio en producción (variable JWT_SECRET)");
+            }
+            log.warn("jwt.secret no está configurado: se usa una clave aleatoria y los tokens no sobreviven un reinicio");
+            bytes = new byte[32];
+            new SecureRandom().nextBytes(bytes);
+        } else {
+            bytes = secreto.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length < 32) {
+                throw new IllegalStateException("jwt.secret debe tener al menos 32 bytes para HS256");
+            }
+        }
+        return new SecretKeySpec(bytes, "HmacSHA256");
+    }
+
+    @Bean
+    public JwtEncoder jwtEncoder(SecretKey claveJwt) {
+        return new NimbusJwtEncoder(new ImmutableSecret<>(claveJwt));
+    }
+
+    // Los tokens ya verificados se guardan por su texto: un token repetido no vuelve a calcular el HMAC.
+    // Solo se guardan los válidos, y al recuperarlos se vuelve a mirar el vencimiento.
+    @Bean
+    public JwtDecoder jwtDecoder(SecretKey claveJwt,
+                                 @Value("${jwt.cache.max-entradas:10000}") long maxEntradas,
+                                 @Value("${jwt.cache.ttl-segundos:300}") long ttlSegundos) {
+        return decodificador(claveJwt, maxEntradas, ttlSegundos, Clock.systemUTC());
+    }
+
+    // El mismo reloj para el vencimiento de los guardados y el de Nimbus, así se puede probar
+    static JwtDecoder decodificador(SecretKey claveJwt, long maxEntradas, long ttlSegundos, Clock reloj) {
+        NimbusJwtDecoder nimbus = NimbusJwtDecoder.withSecretKey(claveJwt).macAlgorithm(MacAlgorithm.HS256).build();
+        JwtTimestampValidator vigencia = new JwtTimestampValidator();
+        vigencia.setClock(reloj);
+        nimbus.setJwtValidator(JwtValidators.createDefaultWithValidators(List.of(new JwtIssuerValidator(EMISOR), vigencia)));
+        Cache<String, Jwt> verificados = Caffeine.newBuilder()
+                .maximumSize(maxEntradas)
+                .expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+                .build();
+
+        return token -> {
+            Jwt jwt = verificados.getIfPresent(token);
+            if (jwt != null) {
+                if (jwt.getExpiresAt() == null || jwt.getExpiresAt().isAfter(Instant.now(reloj))) {
+                    return jwt;
+                }
+                verificados.invalidate(token);
+            }
+            jwt = nimbus.decode(token);
+            verificados.put(token, jwt);
+            return jwt;
+        };
+    }
+
+    // El role del token se expone como ROLE_ADMIN / ROLE_USER para los @PreAuthorize y reglas futuras
+    @Bean
+    public JwtAuthenticationConverter jwtAuthenticationConverter() {
+        JwtGrantedAuthoritiesConverter roles = new JwtGrantedAuthoritiesConverter();
+        roles.setAuthoritiesClaimName(CLAIM_ROLE);
+        roles.setAuthorityPrefix("ROLE_");
+
+        JwtAuthenticationConverter convertidor = new JwtAuthenticationConverter();
+        convertidor.setJwtGrantedAuthoritiesConverter(roles);
+        return convertidor;
+    }
+}
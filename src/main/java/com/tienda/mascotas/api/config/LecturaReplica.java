@@ -0,0 +1,19 @@
+package com.tienda.mascotas.api.config;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Transacción de solo lectura que puede ir a la réplica, si hay una configurada y está al día.
+// Es lo único que mira el enrutador: cualquier otra transacción readOnly (por ejemplo la que abre
+// un repositorio de Spring Data en una consulta suelta) lee del primario.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Transactional(readOnly = true)
+public @interface LecturaReplica {
+}
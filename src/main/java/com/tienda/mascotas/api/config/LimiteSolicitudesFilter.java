@@ -0,0 +1,158 @@
+package com.tienda.mascotas.api.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Límite de solicitudes por cliente (usuario del token o IP) y por grupo de endpoints.
+// Cada cubeta es un solo AtomicLong con el algoritmo GCRA: guarda el instante teórico en que
+// la cubeta vuelve a estar vacía y se actualiza con compareAndSet, sin candados.
+// Las cubetas viven en una caché acotada por grupo, con el cliente como clave, que descarta
+// los clientes inactivos.
+public class LimiteSolicitudesFilter extends OncePerRequestFilter {
+
+    enum Grupo {
+        CATALOGO("catalogo", 600, 60),
+        BUSQUEDA("busqueda", 120, 20),
+        LOGIN("login", 10, 5),
+        CHECKOUT("checkout", 20, 5);
+
+        private final String clave;
+        private final long porMinutoPorDefecto;
+        private final long rafagaPorDefecto;
+
+        Grupo(String clave, long porMinutoPorDefecto, long rafagaPorDefecto) {
+            this.clave = clave;
+            this.porMinutoPorDefecto = porMinutoPorDefecto;
+            this.rafagaPorDefecto = rafagaPorDefecto;
+        }
+    }
+
+    // intervalo: nanos entre solicitudes al ritmo sostenido; tolerancia: cuánto puede adelantarse una ráfaga
+    private record Limite(long intervalo, long tolerancia) {
+    }
+
+    private final boolean habilitado;
+    private final Map<Grupo, Limite> limites = new EnumMap<>(Grupo.class);
+    private final Map<Grupo, Cache<String, AtomicLong>> cubetas = new EnumMap<>(Grupo.class);
+    private final LongSupplier reloj;
+
+    public LimiteSolicitudesFilter(Environment entorno) {
+        this(entorno, System::nanoTime);
+    }
+
+    LimiteSolicitudesFilter(Environment entorno, LongSupplier reloj) {
+        this.reloj = reloj;
+        habilitado = entorno.getProperty("limite.enabled", Boolean.class, true);
+        long maxClientes = entorno.getProperty("limite.max-clientes", Long.class, 100_000L);
+        for (Grupo grupo : Grupo.values()) {
+            long porMinuto = entorno.getProperty("limite." + grupo.clave + ".por-minuto", Long.class, grupo.porMinutoPorDefecto);
+            long rafaga = entorno.getProperty("limite." + grupo.clave + ".rafaga", Long.class, grupo.rafagaPorDefecto);
+            // Cero o menos: el grupo no tiene límite
+            if (porMinuto > 0 && rafaga > 0) {
+                long intervalo = TimeUnit.MINUTES.toNanos(1) / porMinuto;
+                limites.put(grupo, new Limite(intervalo, intervalo * (rafaga - 1)));
+                cubetas.put(grupo, Caffeine.newBuilder()
+                        .maximumSize(maxClientes)
+                        .expireAfterAccess(Duration.ofMinutes(10))
+                        .build());
+            }
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Grupo grupo = habilitado ? grupo(request) : null;
+        Limite limite = grupo != null ? limites.get(grupo) : null;
+        if (limite == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        AtomicLong cubeta = cubetas.get(grupo).get(cliente(request), clave -> new AtomicLong(Long.MIN_VALUE));
+        long espera = consumir(cubeta, limite);
+        if (espera > 0) {
+            long segundos = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(espera + TimeUnit.SECONDS.toNanos(1) - 1));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(segundos));
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("Demasiadas solicitudes, intente nuevamente en " + segundos + " s");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    // 0 si la solicitud entra; si no, los nanos que faltan para que entre
+    private long consumir(AtomicLong cubeta, Limite limite) {
+        long ahora = reloj.getAsLong();
+        while (true) {
+            long vacia = cubeta.get();
+            long desde = vacia == Long.MIN_VALUE || vacia - ahora < 0 ? ahora : vacia;
+            long siguiente = desde + limite.intervalo();
+            long adelanto = siguiente - ahora - limite.intervalo();
+            if (adelanto > limite.tolerancia()) {
+                return adelanto - limite.tolerancia();
+            }
+            if (cubeta.compareAndSet(vacia, siguiente)) {
+                return 0;
+            }
+        }
+    }
+
+    private static Grupo grupo(HttpServletRequest request) {
+        String ruta = request.getRequestURI().substring(request.getContextPath().length());
+        String metodo = request.getMethod();
+        if ("POST".equals(metodo)) {
+            if (ruta.equals("/api/usuarios/login")) {
+                return Grupo.LOGIN;
+            }
+            if (ruta.equals("/api/pedidos") || ruta.equals("/api/pedidos/")) {
+                return Grupo.CHECKOUT;
+            }
+            return null;
+        }
+        if (!"GET".equals(metodo)) {
+            return null;
+        }
+        if ((ruta.startsWith("/api/productos/") || ruta.startsWith("/api/usuarios/"))
+                && (ruta.contains("/buscar") || ruta.equals("/api/productos/consulta"))) {
+            return Grupo.BUSQUEDA;
+        }
+        if (ruta.startsWith("/api/productos") || ruta.startsWith("/api/categorias")) {
+            return Grupo.CATALOGO;
+        }
+        return null;
+    }
+
+    // El filtro corre después del de JWT: con token válido se limita por usuario, sin token por IP.
+    // La IP va tal cual, sin armar otra cadena: ninguna dirección empieza con "u:".
+    private static String cliente(HttpServletRequest request) {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacion instanceof JwtAuthenticationToken token) {
+            return "u:" + token.getName();
+        }
+        return request.getRemoteAddr();
+    }
+}
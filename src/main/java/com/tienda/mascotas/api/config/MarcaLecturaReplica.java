@@ -0,0 +1,30 @@
+package com.tienda.mascotas.api.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+// Deja marcado el hilo mientras corre un método @LecturaReplica, para que el enrutador lo vea
+// al pedir la conexión (que recién se pide en la primera sentencia)
+class MarcaLecturaReplica implements MethodInterceptor {
+
+    private static final ThreadLocal<Boolean> ACTIVA = new ThreadLocal<>();
+
+    static boolean activa() {
+        return Boolean.TRUE.equals(ACTIVA.get());
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocacion) throws Throwable {
+        Boolean anterior = ACTIVA.get();
+        ACTIVA.set(true);
+        try {
+            return invocacion.proceed();
+        } finally {
+            if (anterior == null) {
+                ACTIVA.remove();
+            } else {
+                ACTIVA.set(anterior);
+            }
+        }
+    }
+}
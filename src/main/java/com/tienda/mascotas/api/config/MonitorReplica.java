@@ -0,0 +1,63 @@
+package com.tienda.mascotas.api.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+// Consulta periódicamente el retraso de la réplica. Una base que no está en recuperación
+// (por ejemplo, una segunda instancia local en pruebas) cuenta como al día.
+class MonitorReplica {
+
+    private static final Logger log = LoggerFactory.getLogger(MonitorReplica.class);
+
+    // Sin WAL pendiente de aplicar no hay retraso, aunque la última transacción reproducida sea vieja
+    private static final String RETRASO_SEGUNDOS = "SELECT CASE "
+            + "WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+
+    private final JdbcTemplate replica;
+    private final long retrasoMaximoMs;
+
+    // Hasta la primera verificación las lecturas van al primario
+    private volatile boolean disponible;
+
+    MonitorReplica(JdbcTemplate replica, long retrasoMaximoMs) {
+        this.replica = replica;
+        this.retrasoMaximoMs = retrasoMaximoMs;
+    }
+
+    boolean isDisponible() {
+        return disponible;
+    }
+
+    @Scheduled(fixedDelayString = "${spring.datasource.replica.verificar-ms:2000}")
+    public void verificar() {
+        Double retraso;
+        try {
+            retraso = replica.queryForObject(RETRASO_SEGUNDOS, Double.class);
+        } catch (DataAccessException e) {
+            if (disponible) {
+                log.warn("La réplica no responde; las lecturas vuelven al primario", e);
+            }
+            disponible = false;
+            return;
+        }
+
+        boolean alDia = retraso != null && retraso * 1000 <= retrasoMaximoMs;
+        if (disponible && !alDia) {
+            log.warn("Réplica atrasada ({} s); las lecturas vuelven al primario", retraso);
+        } else if (!disponible && alDia) {
+            log.info("Réplica al día; las transacciones de solo lectura se envían a la réplica");
+        }
+        disponible = alDia;
+    }
+
+    void marcarCaida(Exception causa) {
+        if (disponible) {
+            log.warn("No se pudo conectar a la réplica; las lecturas vuelven al primario hasta la próxima verificación", causa);
+        }
+        disponible = false;
+    }
+}
@@ -0,0 +1,84 @@
+package com.tienda.mascotas.api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+// Con spring.datasource.replica.url definida, los métodos @LecturaReplica leen de la réplica
+// y todo lo demás va al primario. Sin esa propiedad queda el DataSource autoconfigurado de siempre.
+@Configuration
+@ConditionalOnProperty(name = "spring.datasource.replica.url")
+public class ReplicaConfig {
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primarioDataSource(DataSourceProperties propiedades) {
+        HikariDataSource dataSource = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primario");
+        return dataSource;
+    }
+
+    // Pool propio: sus ajustes van en spring.datasource.replica.hikari.*
+    @Bean
+    @ConfigurationProperties("spring.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties propiedades,
+                                              @Value("${spring.datasource.replica.url}") String url,
+                                              @Value("${spring.datasource.replica.username:}") String usuario,
+                                              @Value("${spring.datasource.replica.password:}") String password) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(url);
+        dataSource.setDriverClassName(propiedades.determineDriverClassName());
+        dataSource.setUsername(usuario.isEmpty() ? propiedades.determineUsername() : usuario);
+        dataSource.setPassword(password.isEmpty() ? propiedades.determinePassword() : password);
+        return dataSource;
+    }
+
+    @Bean
+    public MonitorReplica monitorReplica(HikariDataSource replicaDataSource,
+                                         @Value("${spring.datasource.replica.retraso-maximo-ms:5000}") long retrasoMaximoMs) {
+        return new MonitorReplica(new JdbcTemplate(replicaDataSource), retrasoMaximoMs);
+    }
+
+    // La conexión real se pide recién en la primera sentencia, cuando la transacción ya
+    // quedó marcada como de solo lectura; antes el enrutador no sabría a dónde ir
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primarioDataSource, HikariDataSource replicaDataSource,
+                                 MonitorReplica monitorReplica) {
+        EnrutadorDataSource enrutador = new EnrutadorDataSource(primarioDataSource, replicaDataSource, monitorReplica);
+        enrutador.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy();
+        proxy.setTargetDataSource(enrutador);
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return proxy;
+    }
+
+    // Marca los métodos @LecturaReplica; de infraestructura para que lo aplique el mismo
+    // auto-proxy que ya envuelve las transacciones
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor lecturaReplicaAdvisor() {
+        return new DefaultPointcutAdvisor(AnnotationMatchingPointcut.forMethodAnnotation(LecturaReplica.class),
+                new MarcaLecturaReplica());
+    }
+}
@@ -2,13 +2,18 @@ package com.tienda.mascotas.api.config;
 
 
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
@@ -16,7 +21,9 @@ import org.springframework.security.web.SecurityFilterChain;
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   JwtAuthenticationConverter jwtAuthenticationConverter,
+                                                   LimiteSolicitudesFilter limiteSolicitudesFilter) throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
                 .cors(cors -> {})
@@ -32,14 +39,37 @@ public class SecurityConfig {
                                 "/swagger-ui/**",
                                 "/v3/api-docs/**"
                         ).permitAll()
+                        // Las métricas muestran tráfico y aciertos de caché: solo para administradores
+                        .requestMatchers("/actuator/metrics", "/actuator/metrics/**").hasRole("ADMIN")
                         .anyRequest().permitAll()
-                );
+                )
+                // Authorization: Bearer <token> se verifica sin sesión ni base (ver JwtConfig);
+                // las rutas siguen abiertas, un token inválido sí responde 401
+                .oauth2ResourceServer(oauth2 -> oauth2
+                        .jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter))
+                )
+                // Después del JWT para poder limitar por usuario autenticado
+                .addFilterAfter(limiteSolicitudesFilter, BearerTokenAuthenticationFilter.class);
 
         return http.build();
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public LimiteSolicitudesFilter limiteSolicitudesFilter(Environment entorno) {
+        return new LimiteSolicitudesFilter(entorno);
+    }
+
+    // Solo dentro de la cadena de seguridad, no también como filtro suelto del contenedor
+    @Bean
+    public FilterRegistrationBean<LimiteSolicitudesFilter> registroLimiteSolicitudes(LimiteSolicitudesFilter filtro) {
+        FilterRegistrationBean<LimiteSolicitudesFilter> registro = new FilterRegistrationBean<>(filtro);
+        registro.setEnabled(false);
+        return registro;
+    }
+
+    // Costo (log2 de rondas) de los hashes nuevos; con seguridad.bcrypt.rehash los anteriores se actualizan al validar
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${seguridad.bcrypt.costo:10}") int costo) {
+        return new BCryptPasswordEncoder(costo);
     }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+-- Esquema tal como lo generaba Hibernate (ddl-auto=update) antes de pasar a migraciones.
+-- Las bases existentes se marcan en esta versión (baseline-on-migrate) y siguen desde V2.
+
+CREATE TABLE categorias (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre      VARCHAR(255) NOT NULL UNIQUE,
+    descripcion VARCHAR(255),
+    activa      BOOLEAN      NOT NULL
+);
+
+CREATE TABLE usuarios (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre         VARCHAR(255) NOT NULL,
+    apellido       VARCHAR(255) NOT NULL,
+    email          VARCHAR(255) NOT NULL UNIQUE,
+    password       VARCHAR(255) NOT NULL,
+    telefono       VARCHAR(255),
+    direccion      VARCHAR(255),
+    role           VARCHAR(255) NOT NULL CHECK (role IN ('USER', 'ADMIN')),
+    activo         BOOLEAN      NOT NULL,
+    fecha_registro TIMESTAMP(6)
+);
+
+CREATE TABLE productos (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre         VARCHAR(255)   NOT NULL,
+    descripcion    VARCHAR(1000),
+    precio         NUMERIC(38, 2) NOT NULL,
+    stock          INTEGER        NOT NULL,
+    imagen_url     VARCHAR(255),
+    destacado      BOOLEAN        NOT NULL,
+    activo         BOOLEAN        NOT NULL,
+    categoria_id   BIGINT         NOT NULL REFERENCES categorias (id),
+    fecha_creacion TIMESTAMP(6)
+);
+
+CREATE TABLE pedidos (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    usuario_id      BIGINT         NOT NULL REFERENCES usuarios (id),
+    fecha_pedido    TIMESTAMP(6)   NOT NULL,
+    total           NUMERIC(38, 2) NOT NULL,
+    estado          VARCHAR(255)   NOT NULL CHECK (estado IN ('PENDIENTE', 'CONFIRMADO', 'EN_PREPARACION',
+                                                              'ENVIADO', 'ENTREGADO', 'CANCELADO')),
+    direccion_envio VARCHAR(255)   NOT NULL,
+    metodo_pago     VARCHAR(255),
+    notas           VARCHAR(255)
+);
+
+CREATE TABLE detalle_pedido (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    pedido_id       BIGINT         NOT NULL REFERENCES pedidos (id),
+    producto_id     BIGINT         NOT NULL REFERENCES productos (id),
+    cantidad        INTEGER        NOT NULL,
+    precio_unitario NUMERIC(38, 2) NOT NULL,
+    subtotal        NUMERIC(38, 2) NOT NULL
+);
@@ -0,0 +1,36 @@
+-- Cambios de modelo posteriores al esquema inicial. Todo es idempotente porque las bases
+-- que corrieron con ddl-auto=update pueden tener ya parte de esto.
+
+-- Pedidos y detalles usan secuencias con allocationSize = 50 (inserción en lote).
+-- En bases con datos la secuencia se adelanta por encima del id máximo.
+CREATE SEQUENCE IF NOT EXISTS pedidos_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS detalle_pedido_seq START WITH 1 INCREMENT BY 50;
+
+SELECT setval('pedidos_seq', GREATEST(
+        (SELECT COALESCE(MAX(id), 0) FROM pedidos) + 50,
+        (SELECT last_value FROM pedidos_seq)));
+SELECT setval('detalle_pedido_seq', GREATEST(
+        (SELECT COALESCE(MAX(id), 0) FROM detalle_pedido) + 50,
+        (SELECT last_value FROM detalle_pedido_seq)));
+
+-- Descuento de stock pendiente de volcar (inventario en memoria) y acumulado de ventas
+ALTER TABLE pedidos ADD COLUMN IF NOT EXISTS stock_pendiente BOOLEAN NOT NULL DEFAULT false;
+ALTER TABLE pedidos ADD COLUMN IF NOT EXISTS contabilizado BOOLEAN NOT NULL DEFAULT false;
+-- Si ya las había creado ddl-auto=update, quedaron sin default y admitiendo null
+UPDATE pedidos SET stock_pendiente = false WHERE stock_pendiente IS NULL;
+UPDATE pedidos SET contabilizado = false WHERE contabilizado IS NULL;
+ALTER TABLE pedidos
+    ALTER COLUMN stock_pendiente SET DEFAULT false,
+    ALTER COLUMN stock_pendiente SET NOT NULL,
+    ALTER COLUMN contabilizado SET DEFAULT false,
+    ALTER COLUMN contabilizado SET NOT NULL;
+
+CREATE TABLE IF NOT EXISTS ventas_diarias (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    fecha        DATE           NOT NULL,
+    producto_id  BIGINT         NOT NULL,
+    categoria_id BIGINT,
+    unidades     BIGINT         NOT NULL,
+    ingresos     NUMERIC(38, 2) NOT NULL,
+    CONSTRAINT uk_ventas_diarias_fecha_producto UNIQUE (fecha, producto_id)
+);
@@ -0,0 +1,35 @@
+-- Índices pensados para las consultas de los repositorios. Los parciales (WHERE activo ...)
+-- cubren solo las filas que esas consultas pueden devolver.
+-- CONCURRENTLY no bloquea las escrituras mientras se construyen, pero no puede correr dentro
+-- de una transacción: V3__indices.sql.conf desactiva la transacción de esta migración.
+-- Si una construcción se interrumpe queda un índice INVALID que IF NOT EXISTS no rehace:
+-- hay que borrarlo (DROP INDEX CONCURRENTLY) antes de reintentar.
+
+-- Productos: findByCategoriaIdAndActivoTrue y la consulta facetada por categoría ordenada por precio
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_productos_categoria_precio_activos ON productos (categoria_id, precio, id) WHERE activo;
+-- Consulta facetada sin categoría, ordenada por precio o por nombre
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_productos_precio_activos ON productos (precio, id) WHERE activo;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_productos_nombre_activos ON productos (nombre, id) WHERE activo;
+-- findByDestacadoTrueAndActivoTrue
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_productos_destacados ON productos (id) WHERE destacado AND activo;
+-- findProductosRecientes
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_productos_recientes ON productos (fecha_creacion DESC) WHERE activo;
+
+-- Pedidos: findByUsuarioId / findByUsuarioIdOrderByFechaPedidoDesc
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_pedidos_usuario_fecha ON pedidos (usuario_id, fecha_pedido DESC);
+-- findByFechaPedidoBetween, exportación y paginación por (fecha_pedido, id)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_pedidos_fecha ON pedidos (fecha_pedido, id);
+-- findByEstado y countByEstado
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_pedidos_estado ON pedidos (estado);
+-- Colas de trabajo: volcado de stock y contabilización de ventas (pocas filas a la vez)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_pedidos_stock_pendiente ON pedidos (id) WHERE stock_pendiente = true;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_pedidos_sin_contabilizar ON pedidos (id) WHERE contabilizado IS NOT TRUE;
+
+-- Detalles: carga de los detalles de un pedido y consultas por producto
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_detalle_pedido_pedido ON detalle_pedido (pedido_id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_detalle_pedido_producto ON detalle_pedido (producto_id);
+
+-- Índices creados por ddl-auto=update a partir de @Index; los reemplazan los parciales de arriba
+DROP INDEX CONCURRENTLY IF EXISTS idx_productos_categoria_activo_precio;
+DROP INDEX CONCURRENTLY IF EXISTS idx_productos_activo_precio;
+DROP INDEX CONCURRENTLY IF EXISTS idx_productos_activo_nombre;
@@ -0,0 +1,114 @@
+package com.tienda.mascotas.api.Controller;
+
+import com.tienda.mascotas.api.Service.ExportacionPedidos;
+import com.tienda.mascotas.api.Service.PedidoService;
+import com.tienda.mascotas.api.Service.RecepcionPedidos;
+import com.tienda.mascotas.api.Service.RegistroIdempotencia;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PedidoControllerTests {
+
+    private static final String PEDIDO = """
+            {"usuario": {"id": 1}, "direccionEnvio": "Calle Falsa 123",
+             "detalles": [{"producto": {"id": 1}, "cantidad": 1}]}
+            """;
+
+    private RecepcionPedidos recepcionPedidos;
+    private ExportacionPedidos exportacionPedidos;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void preparar() {
+        recepcionPedidos = mock(RecepcionPedidos.class);
+        when(recepcionPedidos.isHabilitado()).thenReturn(true);
+
+        PedidoController controller = new PedidoController();
+        ReflectionTestUtils.setField(controller, "pedidoService", mock(PedidoService.class));
+        ReflectionTestUtils.setField(controller, "recepcionPedidos", recepcionPedidos);
+        ReflectionTestUtils.setField(controller, "registroIdempotencia", mock(RegistroIdempotencia.class));
+        exportacionPedidos = mock(ExportacionPedidos.class);
+        ReflectionTestUtils.setField(controller, "exportacionPedidos", exportacionPedidos);
+        ReflectionTestUtils.setField(controller, "timeoutExportacion", 600_000L);
+        // El timeout asíncrono general queda corto: solo la exportación lo extiende
+        mvc = MockMvcBuilders.standaloneSetup(controller).setAsyncRequestTimeout(30_000L).build();
+    }
+
+    @Test
+    void conLaColaLlenaResponde503ConRetryAfter() throws Exception {
+        when(recepcionPedidos.encolar(any())).thenReturn(null);
+
+        mvc.perform(post("/api/pedidos").contentType(MediaType.APPLICATION_JSON).content(PEDIDO))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"));
+    }
+
+    @Test
+    void laExportacionExtiendeSoloSuTimeoutYTransmiteLasFilas() throws Exception {
+        doAnswer(invocacion -> {
+            OutputStream salida = invocacion.getArgument(3);
+            salida.write("id,fecha_pedido\n1,2024-09-10T10:15\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportacionPedidos).exportar(any(), any(), eq(true), any());
+
+        MvcResult resultado = mvc.perform(get("/api/pedidos/exportar")
+                        .param("inicio", "2024-09-01T00:00:00")
+                        .param("fin", "2024-09-30T23:59:59")
+                        .param("formato", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(resultado.getRequest().getAsyncContext().getTimeout()).isEqualTo(600_000L);
+        mvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=pedidos.csv"))
+                .andExpect(content().string("id,fecha_pedido\n1,2024-09-10T10:15\n"));
+    }
+
+    @Test
+    void unFormatoDesconocidoNoAbreLaExportacion() throws Exception {
+        MvcResult resultado = mvc.perform(get("/api/pedidos/exportar")
+                        .param("inicio", "2024-09-01T00:00:00")
+                        .param("fin", "2024-09-30T23:59:59")
+                        .param("formato", "xml"))
+                .andReturn();
+
+        mvc.perform(asyncDispatch(resultado))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Formato no soportado: xml"));
+        verifyNoInteractions(exportacionPedidos);
+    }
+
+    @Test
+    void unCuerpoInvalidoRespondeBadRequest() throws Exception {
+        when(recepcionPedidos.encolar(any())).thenThrow(new RuntimeException("El pedido debe indicar el usuario"));
+
+        mvc.perform(post("/api/pedidos").contentType(MediaType.APPLICATION_JSON).content("{\"detalles\": []}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("El pedido debe indicar el usuario"));
+    }
+}
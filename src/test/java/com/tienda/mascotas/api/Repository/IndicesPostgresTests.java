@@ -0,0 +1,119 @@
+package com.tienda.mascotas.api.Repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Verifica con EXPLAIN que las consultas calientes usan los índices de las migraciones.
+// Necesita un PostgreSQL local, por ejemplo:
+//   PLANES_DB_URL=jdbc:postgresql://localhost:5432/tienda_mascotas PLANES_DB_USER=postgres PLANES_DB_PASSWORD=... mvn test
+// Trabaja en un esquema propio que se borra al terminar.
+@EnabledIfEnvironmentVariable(named = "PLANES_DB_URL", matches = ".+")
+class IndicesPostgresTests {
+
+    private static final String ESQUEMA = "planes_" + System.currentTimeMillis();
+
+    private static Connection conexion;
+
+    @BeforeAll
+    static void migrar() throws SQLException {
+        String url = System.getenv("PLANES_DB_URL");
+        String usuario = System.getenv("PLANES_DB_USER");
+        String password = System.getenv("PLANES_DB_PASSWORD");
+
+        Flyway.configure()
+                .dataSource(url, usuario, password)
+                .schemas(ESQUEMA)
+                .load()
+                .migrate();
+
+        conexion = DriverManager.getConnection(url, usuario, password);
+        try (Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("SET search_path TO " + ESQUEMA);
+            sentencia.execute("INSERT INTO categorias (nombre, activa) "
+                    + "SELECT 'Categoría ' || i, true FROM generate_series(1, 20) i");
+            sentencia.execute("INSERT INTO usuarios (nombre, apellido, email, password, role, activo, fecha_registro) "
+                    + "SELECT 'Nombre', 'Apellido', 'u' || i || '@mail.com', 'x', 'USER', true, now() "
+                    + "FROM generate_series(1, 2000) i");
+            sentencia.execute("INSERT INTO productos (nombre, precio, stock, destacado, activo, categoria_id, fecha_creacion) "
+                    + "SELECT 'Producto ' || i, (i % 200) + 0.99, i % 30, i % 50 = 0, i % 10 <> 0, (i % 20) + 1, "
+                    + "now() - (i || ' minutes')::interval FROM generate_series(1, 20000) i");
+            sentencia.execute("INSERT INTO pedidos (id, usuario_id, fecha_pedido, total, estado, direccion_envio, "
+                    + "stock_pendiente, contabilizado) "
+                    + "SELECT i, (i % 2000) + 1, now() - (i || ' minutes')::interval, 10, "
+                    + "CASE WHEN i % 100 = 0 THEN 'PENDIENTE' ELSE 'ENTREGADO' END, 'Calle 1', "
+                    + "false, true FROM generate_series(1, 50000) i");
+            sentencia.execute("INSERT INTO detalle_pedido (id, pedido_id, producto_id, cantidad, precio_unitario, subtotal) "
+                    + "SELECT i, (i % 50000) + 1, (i % 20000) + 1, 1, 10, 10 FROM generate_series(1, 100000) i");
+            sentencia.execute("ANALYZE");
+        }
+    }
+
+    @AfterAll
+    static void limpiar() throws SQLException {
+        if (conexion == null) {
+            return;
+        }
+        try (Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("DROP SCHEMA " + ESQUEMA + " CASCADE");
+        }
+        conexion.close();
+    }
+
+    @Test
+    void productosPorCategoriaActivos() throws SQLException {
+        assertThat(plan("SELECT * FROM productos WHERE categoria_id = 3 AND activo = true"))
+                .contains("idx_productos_categoria_precio_activos");
+    }
+
+    @Test
+    void productosDestacados() throws SQLException {
+        assertThat(plan("SELECT * FROM productos WHERE destacado = true AND activo = true"))
+                .contains("idx_productos_destacados");
+    }
+
+    @Test
+    void pedidosDeUnUsuarioPorFecha() throws SQLException {
+        assertThat(plan("SELECT * FROM pedidos WHERE usuario_id = 42 ORDER BY fecha_pedido DESC"))
+                .contains("idx_pedidos_usuario_fecha");
+    }
+
+    @Test
+    void pedidosPorEstado() throws SQLException {
+        assertThat(plan("SELECT count(*) FROM pedidos WHERE estado = 'PENDIENTE'"))
+                .contains("idx_pedidos_estado");
+    }
+
+    @Test
+    void pedidosEntreFechas() throws SQLException {
+        assertThat(plan("SELECT * FROM pedidos WHERE fecha_pedido BETWEEN now() - interval '2 hours' AND now()"))
+                .contains("idx_pedidos_fecha");
+    }
+
+    @Test
+    void detallesDeUnPedido() throws SQLException {
+        assertThat(plan("SELECT * FROM detalle_pedido WHERE pedido_id = 77"))
+                .contains("idx_detalle_pedido_pedido");
+    }
+
+    private String plan(String consulta) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (Statement sentencia = conexion.createStatement();
+             ResultSet filas = sentencia.executeQuery("EXPLAIN " + consulta)) {
+            while (filas.next()) {
+                plan.append(filas.getString(1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+}
@@ -0,0 +1,131 @@
+package com.tienda.mascotas.api.Service;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Compara el índice de trigramas con el LIKE '%x%' de la base sobre 100k productos:
+// mismos resultados y cuánto tarda cada uno. Solo informa los tiempos, no los exige.
+// Usa el mismo PostgreSQL local que IndicesPostgresTests, por ejemplo:
+//   PLANES_DB_URL=jdbc:postgresql://localhost:5432/tienda_mascotas PLANES_DB_USER=postgres PLANES_DB_PASSWORD=... mvn test
+@EnabledIfEnvironmentVariable(named = "PLANES_DB_URL", matches = ".+")
+class BusquedaIndiceBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(BusquedaIndiceBenchmarkTests.class);
+
+    private static final String ESQUEMA = "busqueda_" + System.currentTimeMillis();
+    private static final int PRODUCTOS = 100_000;
+    private static final int REPETICIONES = 50;
+    private static final String[] CONSULTAS = {"collar", "cucha 4242", "alimento premium", "99999", "pe"};
+
+    private static Connection conexion;
+    private static IndiceNGramas indice;
+
+    @BeforeAll
+    static void preparar() throws SQLException {
+        String url = System.getenv("PLANES_DB_URL");
+        String usuario = System.getenv("PLANES_DB_USER");
+        String password = System.getenv("PLANES_DB_PASSWORD");
+
+        Flyway.configure()
+                .dataSource(url, usuario, password)
+                .schemas(ESQUEMA)
+                .load()
+                .migrate();
+
+        conexion = DriverManager.getConnection(url, usuario, password);
+        try (Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("SET search_path TO " + ESQUEMA);
+            sentencia.execute("INSERT INTO categorias (nombre, activa) VALUES ('General', true)");
+            sentencia.execute("INSERT INTO productos (nombre, precio, stock, destacado, activo, categoria_id, fecha_creacion) "
+                    + "SELECT (ARRAY['Collar', 'Correa', 'Alimento premium', 'Pelota', 'Cucha'])[i % 5 + 1] || ' ' || i, "
+                    + "10, 5, false, true, (SELECT min(id) FROM categorias), now() "
+                    + "FROM generate_series(1, " + PRODUCTOS + ") i");
+            sentencia.execute("ANALYZE");
+        }
+
+        // Misma carga que IndiceBusqueda.construir, sin descripción para comparar solo el nombre
+        indice = new IndiceNGramas();
+        indice.iniciarCarga();
+        try (Statement sentencia = conexion.createStatement();
+             ResultSet filas = sentencia.executeQuery("SELECT id, nombre FROM productos WHERE activo = true")) {
+            while (filas.next()) {
+                indice.cargar(filas.getLong(1), filas.getString(2));
+            }
+        }
+        indice.terminarCarga();
+    }
+
+    @AfterAll
+    static void limpiar() throws SQLException {
+        if (conexion == null) {
+            return;
+        }
+        try (Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("DROP SCHEMA " + ESQUEMA + " CASCADE");
+        }
+        conexion.close();
+    }
+
+    @Test
+    void elIndiceEncuentraLoMismoQueLike() throws SQLException {
+        for (String consulta : CONSULTAS) {
+            assertThat(new HashSet<>(indice.buscar(consulta))).as(consulta).isEqualTo(conLike(consulta));
+        }
+    }
+
+    @Test
+    void tiemposIndiceContraLike() throws SQLException {
+        for (String consulta : CONSULTAS) {
+            long[] like = new long[REPETICIONES];
+            long[] trigramas = new long[REPETICIONES];
+            for (int i = 0; i < REPETICIONES; i++) {
+                long inicio = System.nanoTime();
+                conLike(consulta);
+                like[i] = System.nanoTime() - inicio;
+
+                inicio = System.nanoTime();
+                indice.buscar(consulta);
+                trigramas[i] = System.nanoTime() - inicio;
+            }
+            log.info("'{}': LIKE mediana {} ms, índice mediana {} ms", consulta, mediana(like), mediana(trigramas));
+        }
+    }
+
+    private static Set<Long> conLike(String consulta) throws SQLException {
+        Set<Long> ids = new HashSet<>();
+        try (PreparedStatement sentencia = conexion.prepareStatement(
+                "SELECT id FROM productos WHERE activo = true AND lower(nombre) LIKE ?")) {
+            sentencia.setString(1, "%" + consulta.toLowerCase(Locale.ROOT) + "%");
+            try (ResultSet filas = sentencia.executeQuery()) {
+                while (filas.next()) {
+                    ids.add(filas.getLong(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static String mediana(long[] nanos) {
+        long[] ordenados = nanos.clone();
+        Arrays.sort(ordenados);
+        return String.format(Locale.ROOT, "%.2f", ordenados[ordenados.length / 2] / 1_000_000.0);
+    }
+}
@@ -0,0 +1,122 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Model.Categoria;
+import com.tienda.mascotas.api.Model.Producto;
+import com.tienda.mascotas.api.Repository.CategoriaRepository;
+import com.tienda.mascotas.api.Repository.ProductoRepository;
+import com.tienda.mascotas.api.config.CacheConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.cache.CacheType;
+import org.springframework.boot.test.autoconfigure.core.AutoConfigureCache;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Sin transacción de prueba: la invalidación corre después del commit de cada escritura
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        // Actualizar un producto lo bloquea con la sintaxis del dialecto: en H2 tiene que ser el de H2
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"
+})
+@Import({ProductoService.class, RegistroCategorias.class, InventarioEnMemoria.class, Paginacion.class,
+        CatalogoCache.class, VersionCatalogo.class, IndiceBusqueda.class, CacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+// @DataJpaTest deja las cachés en "none": acá tiene que ser el Caffeine de application.properties
+@AutoConfigureCache(cacheProvider = CacheType.CAFFEINE)
+class CatalogoCacheTests {
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long alimentosId;
+    private Long juguetesId;
+    private Long alimentoId;
+
+    @BeforeEach
+    void preparar() {
+        alimentosId = guardarCategoria("Alimentos");
+        juguetesId = guardarCategoria("Juguetes");
+        alimentoId = guardarProducto("Balanceado", alimentosId).getId();
+        guardarProducto("Pelota", juguetesId);
+        // El contexto se comparte entre pruebas: cada una arranca con las cachés vacías
+        for (String nombre : cacheManager.getCacheNames()) {
+            cacheManager.getCache(nombre).clear();
+        }
+    }
+
+    @AfterEach
+    void limpiar() {
+        productoRepository.deleteAll();
+        categoriaRepository.deleteAll();
+    }
+
+    @Test
+    void unaEscrituraDescartaLasLecturasQueLaContienen() {
+        List<Producto> disponibles = productoService.obtenerDisponibles();
+        List<Producto> alimentos = productoService.obtenerPorCategoria(alimentosId);
+        List<Producto> juguetes = productoService.obtenerPorCategoria(juguetesId);
+        assertThat(productoService.obtenerDisponibles()).isSameAs(disponibles);
+
+        productoService.actualizarStock(alimentoId, 0);
+
+        assertThat(productoService.obtenerDisponibles()).extracting(Producto::getNombre).containsExactly("Pelota");
+        assertThat(productoService.obtenerPorCategoria(alimentosId)).isNotSameAs(alimentos)
+                .extracting(Producto::getStock).containsExactly(0);
+        // La otra categoría no contiene el producto: su entrada sigue en caché
+        assertThat(productoService.obtenerPorCategoria(juguetesId)).isSameAs(juguetes);
+    }
+
+    @Test
+    void unaEscrituraRevertidaNoDescartaNada() {
+        List<Producto> disponibles = productoService.obtenerDisponibles();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            productoService.actualizarStock(alimentoId, 0);
+            status.setRollbackOnly();
+        });
+
+        assertThat(productoService.obtenerDisponibles()).isSameAs(disponibles);
+        assertThat(productoRepository.findById(alimentoId).orElseThrow().getStock()).isEqualTo(5);
+    }
+
+    private Long guardarCategoria(String nombre) {
+        Categoria categoria = new Categoria();
+        categoria.setNombre(nombre);
+        return categoriaRepository.save(categoria).getId();
+    }
+
+    private Producto guardarProducto(String nombre, Long categoriaId) {
+        Categoria categoria = new Categoria();
+        categoria.setId(categoriaId);
+        Producto producto = new Producto();
+        producto.setNombre(nombre);
+        producto.setPrecio(new BigDecimal("10.00"));
+        producto.setStock(5);
+        producto.setCategoria(categoria);
+        return productoRepository.save(producto);
+    }
+}
@@ -0,0 +1,129 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Model.Pedido;
+import com.tienda.mascotas.api.Repository.PedidoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ContadorPedidosTests {
+
+    private ContadorPedidos contador;
+    private PedidoRepository pedidoRepository;
+    private final AtomicLong pendientesEnBase = new AtomicLong();
+    // Si está marcado, la próxima consulta ve la base y enseguida se confirma un alta nueva
+    private final AtomicBoolean cruzarAlta = new AtomicBoolean();
+
+    @BeforeEach
+    void preparar() {
+        pedidoRepository = mock(PedidoRepository.class);
+        when(pedidoRepository.contarAgrupadoPorEstado()).thenAnswer(invocacion -> {
+            List<Object[]> vistas = filas(pendientesEnBase.get());
+            if (cruzarAlta.getAndSet(false)) {
+                pendientesEnBase.incrementAndGet();
+                contador.registrarAlta(Pedido.EstadoPedido.PENDIENTE);
+            }
+            return vistas;
+        });
+        contador = new ContadorPedidos();
+        ReflectionTestUtils.setField(contador, "pedidoRepository", pedidoRepository);
+    }
+
+    @AfterEach
+    void limpiar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void unAltaConfirmadaDuranteLaConsultaNoSePierde() {
+        pendientesEnBase.set(5);
+        contador.reconciliar();
+
+        // La consulta ve 5; el pedido 6 se confirma y aplica su ajuste antes de que termine
+        cruzarAlta.set(true);
+        contador.reconciliar();
+
+        assertThat(contador.contar(Pedido.EstadoPedido.PENDIENTE)).isEqualTo(6);
+    }
+
+    @Test
+    void conUnaTransaccionEnCursoIgualCorrigeLaDiferencia() {
+        pendientesEnBase.set(2);
+        contador.reconciliar();
+
+        TransactionSynchronizationManager.initSynchronization();
+        contador.registrarCambio(Pedido.EstadoPedido.PENDIENTE, Pedido.EstadoPedido.ENVIADO);
+        List<TransactionSynchronization> sincronizaciones = new ArrayList<>(TransactionSynchronizationManager.getSynchronizations());
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // Otra instancia dio de alta dos pedidos: con el cambio todavía sin confirmar, la reconciliación corre igual
+        pendientesEnBase.set(4);
+        contador.reconciliar();
+        assertThat(contador.contar(Pedido.EstadoPedido.PENDIENTE)).isEqualTo(4);
+
+        pendientesEnBase.set(3);
+        sincronizaciones.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertThat(contador.contar(Pedido.EstadoPedido.PENDIENTE)).isEqualTo(3);
+        assertThat(contador.contar(Pedido.EstadoPedido.ENVIADO)).isEqualTo(1);
+    }
+
+    @Test
+    void laPrimeraCargaNoFrenaLosAjustesDeLosCommits() throws Exception {
+        CountDownLatch consultando = new CountDownLatch(1);
+        CountDownLatch responder = new CountDownLatch(1);
+        pendientesEnBase.set(5);
+        when(pedidoRepository.contarAgrupadoPorEstado()).thenAnswer(invocacion -> {
+            List<Object[]> vistas = filas(pendientesEnBase.get());
+            consultando.countDown();
+            responder.await(10, TimeUnit.SECONDS);
+            return vistas;
+        });
+        CompletableFuture<Long> lectura = CompletableFuture.supplyAsync(() -> contador.contar(Pedido.EstadoPedido.PENDIENTE));
+        assertThat(consultando.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // Un alta confirmada mientras la base todavía no respondió: su ajuste no espera a la consulta
+        CompletableFuture<Void> alta = CompletableFuture.runAsync(() -> contador.registrarAlta(Pedido.EstadoPedido.PENDIENTE));
+        alta.get(5, TimeUnit.SECONDS);
+
+        responder.countDown();
+        assertThat(lectura.get(10, TimeUnit.SECONDS)).isEqualTo(6);
+    }
+
+    @Test
+    void unaReversionNoAjustaElContador() {
+        pendientesEnBase.set(3);
+        contador.reconciliar();
+
+        TransactionSynchronizationManager.initSynchronization();
+        contador.registrarAlta(Pedido.EstadoPedido.PENDIENTE);
+        List<TransactionSynchronization> sincronizaciones = new ArrayList<>(TransactionSynchronizationManager.getSynchronizations());
+        TransactionSynchronizationManager.clearSynchronization();
+        sincronizaciones.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(contador.contar(Pedido.EstadoPedido.PENDIENTE)).isEqualTo(3);
+    }
+
+    private static List<Object[]> filas(long pendientes) {
+        List<Object[]> filas = new ArrayList<>();
+        filas.add(new Object[]{Pedido.EstadoPedido.PENDIENTE, pendientes});
+        return filas;
+    }
+}
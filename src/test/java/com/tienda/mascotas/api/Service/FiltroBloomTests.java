@@ -0,0 +1,29 @@
+package com.tienda.mascotas.api.Service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FiltroBloomTests {
+
+    @Test
+    void sinFalsosNegativosYConLaTasaDeFalsosPositivosPedida() {
+        FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.agregar("usuario" + i + "@mail.com");
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filtro.puedeContener("usuario" + i + "@mail.com")).isTrue();
+        }
+
+        int falsosPositivos = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filtro.puedeContener("nuevo" + i + "@mail.com")) {
+                falsosPositivos++;
+            }
+        }
+        assertThat(falsosPositivos / 100_000.0).isLessThan(0.02);
+        assertThat(filtro.tasaEstimada()).isBetween(0.005, 0.015);
+    }
+}
@@ -0,0 +1,95 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Repository.UsuarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FiltroEmailsTests {
+
+    private FiltroEmails filtroEmails;
+    private UsuarioRepository usuarioRepository;
+    private SimpleMeterRegistry registro;
+
+    @BeforeEach
+    void preparar() {
+        usuarioRepository = mock(UsuarioRepository.class);
+        registro = new SimpleMeterRegistry();
+        filtroEmails = new FiltroEmails();
+        ReflectionTestUtils.setField(filtroEmails, "capacidad", 1000L);
+        ReflectionTestUtils.setField(filtroEmails, "tasaFalsosPositivos", 0.01);
+        ReflectionTestUtils.setField(filtroEmails, "usuarioRepository", usuarioRepository);
+        ReflectionTestUtils.setField(filtroEmails, "meterRegistry", registro);
+        filtroEmails.iniciar();
+    }
+
+    @Test
+    void unEmailQueElFiltroNoConoceNoConsultaLaBase() {
+        when(usuarioRepository.findEmails()).thenReturn(List.of("ana@mail.com"));
+        filtroEmails.cargar();
+
+        assertThat(filtroEmails.existe("nuevo@mail.com")).isFalse();
+
+        verify(usuarioRepository, never()).existsByEmail(anyString());
+        assertThat(consultas("ausente")).isEqualTo(1);
+    }
+
+    @Test
+    void unPuedeEstarSeConfirmaEnLaBaseYSeCuentaSegunLaRespuesta() {
+        when(usuarioRepository.findEmails()).thenReturn(List.of("ana@mail.com"));
+        when(usuarioRepository.existsByEmail("ana@mail.com")).thenReturn(true);
+        filtroEmails.cargar();
+
+        assertThat(filtroEmails.existe("ana@mail.com")).isTrue();
+        // El filtro normaliza a minúsculas: la variante pasa por la base, que no la tiene
+        assertThat(filtroEmails.existe(" ANA@mail.com")).isFalse();
+        assertThat(filtroEmails.existe("otro@mail.com")).isFalse();
+
+        verify(usuarioRepository, times(2)).existsByEmail(anyString());
+        assertThat(consultas("existente")).isEqualTo(1);
+        assertThat(consultas("falso_positivo")).isEqualTo(1);
+        assertThat(consultas("ausente")).isEqualTo(1);
+        assertThat(registro.get("usuarios.bloom.tasa_falsos_positivos").gauge().value()).isEqualTo(0.5);
+        assertThat(registro.get("usuarios.bloom.emails").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void unAltaNuevaEnciendeSusBits() {
+        when(usuarioRepository.findEmails()).thenReturn(List.of());
+        when(usuarioRepository.existsByEmail("nuevo@mail.com")).thenReturn(true);
+        filtroEmails.cargar();
+
+        filtroEmails.agregar("Nuevo@mail.com");
+
+        assertThat(filtroEmails.existe("nuevo@mail.com")).isTrue();
+        verify(usuarioRepository).existsByEmail("nuevo@mail.com");
+    }
+
+    @Test
+    void sinCargarSeConsultaSiempreLaBaseSinContar() {
+        when(usuarioRepository.findEmails()).thenThrow(new DataAccessResourceFailureException("sin base"));
+        filtroEmails.cargar();
+
+        assertThat(filtroEmails.existe("nuevo@mail.com")).isFalse();
+        assertThat(filtroEmails.existe(null)).isFalse();
+
+        verify(usuarioRepository).existsByEmail("nuevo@mail.com");
+        assertThat(consultas("ausente") + consultas("existente") + consultas("falso_positivo")).isZero();
+    }
+
+    private double consultas(String resultado) {
+        return registro.get("usuarios.bloom.consultas").tag("resultado", resultado).counter().count();
+    }
+}
@@ -0,0 +1,202 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Model.Categoria;
+import com.tienda.mascotas.api.Model.Producto;
+import com.tienda.mascotas.api.Model.ResultadoImportacion;
+import com.tienda.mascotas.api.Repository.CategoriaRepository;
+import com.tienda.mascotas.api.Repository.ProductoRepository;
+import com.tienda.mascotas.api.config.CacheConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Sin transacción de prueba: cada lote se confirma o se revierte por su cuenta
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "importacion.productos.lote=3"
+})
+@Import({ImportacionProductos.class, RegistroCategorias.class, InventarioEnMemoria.class, CatalogoCache.class,
+        VersionCatalogo.class, IndiceBusqueda.class, CacheConfig.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ImportacionProductosTests {
+
+    @Autowired
+    private ImportacionProductos importacionProductos;
+
+    @Autowired
+    private RegistroCategorias registroCategorias;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    private Long alimentosId;
+
+    @BeforeEach
+    void preparar() {
+        alimentosId = guardarCategoria("Alimentos");
+        guardarCategoria("Juguetes");
+        registroCategorias.categoriasModificadas();
+    }
+
+    @AfterEach
+    void limpiar() {
+        productoRepository.deleteAll();
+        categoriaRepository.deleteAll();
+    }
+
+    @Test
+    void csvConComillasSaltosDeLineaYEncabezadoFlexible() {
+        ResultadoImportacion resultado = csv("﻿Nombre,precio,Categoria_Id,descripcion,activo\n"
+                + "Collar,10.50," + alimentosId + ",\"Cuero, talle \"\"M\"\"\",1\n"
+                + "\n"
+                + "Cucha,99," + alimentosId + ",\"Primera línea\n"
+                + "segunda línea\",false\n"
+                + "Pelota,3," + alimentosId + ",,true\n");
+
+        assertThat(resultado.getProcesadas()).isEqualTo(3);
+        assertThat(resultado.getCreadas()).isEqualTo(3);
+        assertThat(resultado.getErrores()).isEmpty();
+        assertThat(productos()).extracting(Producto::getNombre, Producto::getDescripcion, Producto::getActivo)
+                .containsExactly(
+                        tuple("Collar", "Cuero, talle \"M\"", true),
+                        tuple("Cucha", "Primera línea\nsegunda línea", false),
+                        tuple("Pelota", null, true));
+    }
+
+    @Test
+    void lasFilasConErrorSeInformanConSuLineaYNoFrenanAlResto() {
+        ResultadoImportacion resultado = csv("nombre,precio,categoria\n"
+                + "Collar,abc,Alimentos\n"
+                + "Correa,5\n"
+                + "Rascador,7,Muebles\n"
+                + "\"Comedero\n"
+                + "doble\",4,juguetes \n"
+                + "Cucha,-1,Alimentos\n"
+                + "Pelota,3,\"Juguetes\n");
+
+        assertThat(resultado.getProcesadas()).isEqualTo(6);
+        assertThat(resultado.getCreadas()).isEqualTo(1);
+        assertThat(resultado.getConError()).isEqualTo(5);
+        assertThat(resultado.getErrores()).extracting(ResultadoImportacion.ErrorFila::getFila,
+                        ResultadoImportacion.ErrorFila::getMensaje)
+                .containsExactly(
+                        tuple(2L, "Precio inválido: abc"),
+                        tuple(3L, "Se esperaban 3 columnas y hay 2"),
+                        tuple(4L, "Categoría no encontrada: Muebles"),
+                        tuple(7L, "El precio no puede ser negativo"),
+                        tuple(8L, "Comillas sin cerrar"));
+        assertThat(productos()).extracting(Producto::getNombre).containsExactly("Comedero\ndoble");
+    }
+
+    @Test
+    void unaComillaSinCerrarNoSeComeElRestoDelArchivo() {
+        StringBuilder archivo = new StringBuilder("nombre,precio,categoria\n");
+        archivo.append("\"Collar,10,Alimentos\n");
+        String relleno = "x".repeat(999) + "\n";
+        int lineasRelleno = ImportacionProductos.MAX_CARACTERES_REGISTRO / relleno.length() + 5;
+        archivo.append(relleno.repeat(lineasRelleno));
+        archivo.append("Pelota,3,Juguetes\n");
+
+        ResultadoImportacion resultado = csv(archivo.toString());
+
+        assertThat(resultado.getErrores().get(0).getFila()).isEqualTo(2);
+        assertThat(resultado.getErrores().get(0).getMensaje())
+                .isEqualTo("Comillas sin cerrar: el registro supera los 65536 caracteres");
+        // Se sigue leyendo después del tope: las líneas de relleno sueltas y la última fila válida
+        assertThat(resultado.getCreadas()).isEqualTo(1);
+        assertThat(productos()).extracting(Producto::getNombre).containsExactly("Pelota");
+    }
+
+    @Test
+    void ndjsonCreaActualizaEInformaLasLineasInvalidas() {
+        Long existente = csvCreando("Collar");
+
+        ResultadoImportacion resultado = ndjson("{\"id\": " + existente + ", \"nombre\": \"Collar grande\", "
+                + "\"precio\": 12, \"categoria_id\": " + alimentosId + ", \"stock\": 4}\n"
+                + "{\"nombre\": \"Pelota\", \"precio\": \"3.5\", \"categoria\": \"JUGUETES\", \"descripcion\": null}\n"
+                + "\n"
+                + "[1, 2]\n"
+                + "{\"nombre\": \"Roto\"\n"
+                + "{\"id\": 999999, \"nombre\": \"Fantasma\", \"precio\": 1, \"categoria\": \"Alimentos\"}\n"
+                + "{\"precio\": 1, \"categoria\": \"Alimentos\"}\n");
+
+        assertThat(resultado.getProcesadas()).isEqualTo(6);
+        assertThat(resultado.getCreadas()).isEqualTo(1);
+        assertThat(resultado.getActualizadas()).isEqualTo(1);
+        assertThat(resultado.getErrores()).extracting(ResultadoImportacion.ErrorFila::getFila)
+                .containsExactly(4L, 5L, 6L, 7L);
+        assertThat(resultado.getErrores()).extracting(ResultadoImportacion.ErrorFila::getMensaje)
+                .satisfiesExactly(
+                        mensaje -> assertThat(mensaje).isEqualTo("Se esperaba un objeto JSON"),
+                        mensaje -> assertThat(mensaje).startsWith("JSON inválido"),
+                        mensaje -> assertThat(mensaje).isEqualTo("Producto no encontrado: 999999"),
+                        mensaje -> assertThat(mensaje).isEqualTo("El nombre es obligatorio"));
+        assertThat(productos()).extracting(Producto::getNombre, Producto::getPrecio, Producto::getStock)
+                .containsExactly(
+                        tuple("Collar grande", new BigDecimal("12.00"), 4),
+                        tuple("Pelota", new BigDecimal("3.50"), 0));
+    }
+
+    @Test
+    void unaFilaRechazadaPorLaBaseSoloPierdeEsaFilaDelLote() {
+        // Lotes de 3: el segundo trae un nombre que no entra en la columna
+        ResultadoImportacion resultado = csv("nombre,precio,categoria\n"
+                + "Uno,1,Alimentos\n"
+                + "Dos,1,Alimentos\n"
+                + "Tres,1,Alimentos\n"
+                + "Cuatro,1,Alimentos\n"
+                + "x".repeat(300) + ",1,Alimentos\n"
+                + "Seis,1,Alimentos\n"
+                + "Siete,1,Alimentos\n");
+
+        assertThat(resultado.getCreadas()).isEqualTo(6);
+        assertThat(resultado.getConError()).isEqualTo(1);
+        assertThat(resultado.getErrores().get(0).getFila()).isEqualTo(6);
+        assertThat(productos()).extracting(Producto::getNombre)
+                .containsExactly("Uno", "Dos", "Tres", "Cuatro", "Seis", "Siete");
+    }
+
+    private Long csvCreando(String nombre) {
+        csv("nombre,precio,categoria\n" + nombre + ",10,Alimentos\n");
+        return productos().get(0).getId();
+    }
+
+    private ResultadoImportacion csv(String contenido) {
+        return importacionProductos.importar(new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8)), true);
+    }
+
+    private ResultadoImportacion ndjson(String contenido) {
+        return importacionProductos.importar(new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8)), false);
+    }
+
+    private List<Producto> productos() {
+        List<Producto> productos = productoRepository.findAll();
+        productos.sort(Comparator.comparing(Producto::getId));
+        return productos;
+    }
+
+    private Long guardarCategoria(String nombre) {
+        Categoria categoria = new Categoria();
+        categoria.setNombre(nombre);
+        return categoriaRepository.save(categoria).getId();
+    }
+}
@@ -0,0 +1,93 @@
+package com.tienda.mascotas.api.Service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndiceNGramasTests {
+
+    private IndiceNGramas indice;
+
+    @BeforeEach
+    void preparar() {
+        indice = new IndiceNGramas();
+        indice.iniciarCarga();
+        indice.cargar(1L, "Collar de cuero", "Para perros grandes");
+        indice.cargar(2L, "Correa", "Collar y correa a juego");
+        indice.cargar(3L, "Collar", null);
+        indice.cargar(4L, "Piedras sanitarias", "Para gatos");
+        indice.cargar(5L, "Mini collar antipulgas", null);
+        indice.cargar(6L, "Supercollar", null);
+        indice.terminarCarga();
+    }
+
+    @Test
+    void ordenaPorRelevancia() {
+        // Nombre exacto, comienzo del nombre, comienzo de palabra, dentro del nombre y por último la descripción
+        assertThat(indice.buscar("collar")).containsExactly(3L, 1L, 5L, 6L, 2L);
+    }
+
+    @Test
+    void ignoraMayusculasTildesYEspaciosRepetidos() {
+        indice.poner(7L, "Cachórro  Feliz", null);
+
+        assertThat(indice.buscar("CACHORRO feliz")).containsExactly(7L);
+        assertThat(indice.buscar("cachórro")).containsExactly(7L);
+    }
+
+    @Test
+    void lasConsultasCortasRecorrenLosTextos() {
+        assertThat(indice.buscar("ga")).containsExactly(5L, 4L);
+        assertThat(indice.buscar("  ")).isEmpty();
+        assertThat(indice.buscar(null)).isEmpty();
+    }
+
+    @Test
+    void unTrigramaInexistenteNoDevuelveNada() {
+        assertThat(indice.buscar("xyz")).isEmpty();
+        // Ningún texto contiene la frase completa
+        assertThat(indice.buscar("collar de gatos")).isEmpty();
+    }
+
+    @Test
+    void ponerReemplazaElTextoYQuitarLoSaca() {
+        indice.poner(3L, "Bebedero", null);
+        indice.quitar(6L);
+
+        assertThat(indice.buscar("collar")).containsExactly(1L, 5L, 2L);
+        assertThat(indice.buscar("bebedero")).containsExactly(3L);
+    }
+
+    @Test
+    void sigueEncontrandoLoMismoDespuesDeCompactar() {
+        // Cada reescritura deja las entradas viejas; pasada la mitad el índice se reconstruye
+        for (int i = 0; i < 2000; i++) {
+            indice.poner(100L + (i % 10), "Hueso " + i, "Juguete masticable");
+        }
+
+        assertThat(indice.buscar("hueso 1999")).containsExactly(109L);
+        assertThat(indice.buscar("hueso 0")).isEmpty();
+        assertThat(indice.buscar("masticable")).hasSize(10);
+        assertThat(indice.buscar("collar")).containsExactly(3L, 1L, 5L, 6L, 2L);
+    }
+
+    @Test
+    void lasEscriturasDuranteLaCargaGananSobreLaCarga() {
+        IndiceNGramas cargando = new IndiceNGramas();
+        cargando.iniciarCarga();
+        cargando.poner(1L, "Rascador nuevo", null);
+        cargando.quitar(2L);
+        // La carga trae una foto anterior a esas escrituras
+        cargando.cargar(1L, "Rascador viejo", null);
+        cargando.cargar(2L, "Rascador borrado", null);
+        cargando.cargar(3L, "Rascador", null);
+
+        assertThat(cargando.isListo()).isFalse();
+        cargando.terminarCarga();
+
+        assertThat(cargando.isListo()).isTrue();
+        assertThat(cargando.buscar("rascador")).containsExactly(3L, 1L);
+        assertThat(cargando.buscar("viejo")).isEmpty();
+    }
+}
@@ -0,0 +1,260 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Model.Categoria;
+import com.tienda.mascotas.api.Model.DetallePedido;
+import com.tienda.mascotas.api.Model.Pedido;
+import com.tienda.mascotas.api.Model.Producto;
+import com.tienda.mascotas.api.Model.Usuario;
+import com.tienda.mascotas.api.Repository.CategoriaRepository;
+import com.tienda.mascotas.api.Repository.PedidoRepository;
+import com.tienda.mascotas.api.Repository.ProductoRepository;
+import com.tienda.mascotas.api.Repository.UsuarioRepository;
+import com.tienda.mascotas.api.config.CacheConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Sin transacción de prueba: las reservas se resuelven según cómo termina cada transacción
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        // El bloqueo al cancelar usa la sintaxis del dialecto: en H2 tiene que ser el de H2
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "inventario.memoria.enabled=true"
+})
+@Import({PedidoService.class, InventarioEnMemoria.class, Paginacion.class, ContadorPedidos.class,
+        ReporteVentasService.class, CatalogoCache.class, VersionCatalogo.class, CacheConfig.class,
+        ProductoService.class, RegistroCategorias.class, IndiceBusqueda.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventarioEnMemoriaTests {
+
+    @Autowired
+    private InventarioEnMemoria inventario;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationContext contexto;
+
+    private Long productoId;
+    private Long usuarioId;
+
+    @BeforeEach
+    void preparar() {
+        Categoria categoria = new Categoria();
+        categoria.setNombre("Accesorios");
+        categoria = categoriaRepository.save(categoria);
+
+        Producto producto = new Producto();
+        producto.setNombre("Collar");
+        producto.setPrecio(new BigDecimal("8.00"));
+        producto.setStock(10);
+        producto.setCategoria(categoria);
+        productoId = productoRepository.save(producto).getId();
+
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Eva");
+        usuario.setApellido("Ruiz");
+        usuario.setEmail("eva@mail.com");
+        usuario.setPassword("secreto");
+        usuarioId = usuarioRepository.save(usuario).getId();
+    }
+
+    @AfterEach
+    void limpiar() {
+        inventario.invalidar(productoId);
+        pedidoRepository.deleteAll();
+        productoRepository.deleteAll();
+        categoriaRepository.deleteAll();
+        usuarioRepository.deleteAll();
+    }
+
+    @Test
+    void laReservaQuedaPendienteHastaElVolcado() {
+        Pedido pedido = pedidoService.crear(nuevoPedido(3));
+
+        assertThat(pedidoRepository.findById(pedido.getId()).orElseThrow().getStockPendiente()).isTrue();
+        assertThat(stockEnBase()).isEqualTo(10);
+
+        inventario.volcar();
+
+        assertThat(pedidoRepository.findById(pedido.getId()).orElseThrow().getStockPendiente()).isFalse();
+        assertThat(stockEnBase()).isEqualTo(7);
+        assertThat(alcanza(7)).isTrue();
+        assertThat(alcanza(8)).isFalse();
+    }
+
+    @Test
+    void unReinicioDescuentaLoPendienteSinVolcar() {
+        pedidoService.crear(nuevoPedido(4));
+
+        // Una instancia nueva no tiene contadores: arranca desde la base como tras un reinicio
+        InventarioEnMemoria reiniciado = contexto.getAutowireCapableBeanFactory().createBean(InventarioEnMemoria.class);
+
+        assertThat(stockEnBase()).isEqualTo(10);
+        assertThat(alcanza(reiniciado, 7)).isFalse();
+        assertThat(alcanza(reiniciado, 6)).isTrue();
+    }
+
+    @Test
+    void invalidarConUnaReservaEnVueloNoLaPierde() throws Exception {
+        CountDownLatch reservado = new CountDownLatch(1);
+        CountDownLatch continuar = new CountDownLatch(1);
+        CompletableFuture<Void> enVuelo = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            assertThat(inventario.reservar(Map.of(productoId, 4))).isEmpty();
+            reservado.countDown();
+            esperar(continuar);
+            status.setRollbackOnly();
+        }));
+        assertThat(reservado.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // Stock escrito directo en base mientras la reserva todavía no se confirmó
+        inventario.invalidar(productoId);
+        assertThat(alcanza(7)).isFalse();
+        assertThat(alcanza(6)).isTrue();
+
+        continuar.countDown();
+        enVuelo.get(10, TimeUnit.SECONDS);
+
+        // La reversión devuelve las 4 unidades una sola vez y el contador se recarga desde la base
+        assertThat(alcanza(11)).isFalse();
+        assertThat(alcanza(10)).isTrue();
+    }
+
+    @Test
+    void elStockEscritoSeAplicaAunqueLasReservasNuncaDejenDeSuperponerse() throws Exception {
+        CountDownLatch reservado = new CountDownLatch(1);
+        CountDownLatch continuar = new CountDownLatch(1);
+        CompletableFuture<Void> enVuelo = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            pedidoService.crear(nuevoPedido(4));
+            reservado.countDown();
+            esperar(continuar);
+        }));
+        assertThat(reservado.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // El administrador repone a 20 con el pedido de 4 todavía en vuelo; otro pedido de 3 entra después
+        productoService.actualizarStock(productoId, 20);
+        pedidoService.crear(nuevoPedido(3));
+
+        // Con el primer pedido sin terminar, el contador ya refleja la reposición
+        assertThat(alcanza(13)).isTrue();
+        assertThat(alcanza(14)).isFalse();
+
+        continuar.countDown();
+        enVuelo.get(10, TimeUnit.SECONDS);
+
+        assertThat(alcanza(13)).isTrue();
+        assertThat(alcanza(14)).isFalse();
+        inventario.volcar();
+        assertThat(stockEnBase()).isEqualTo(13);
+    }
+
+    @Test
+    void unaCancelacionDevuelveElStockAlConfirmarse() {
+        Pedido pedido = pedidoService.crear(nuevoPedido(5));
+        assertThat(alcanza(6)).isFalse();
+
+        pedidoService.cancelarPedido(pedido.getId());
+
+        assertThat(alcanza(10)).isTrue();
+        assertThat(alcanza(11)).isFalse();
+    }
+
+    @Test
+    void cancelarPorCambioDeEstadoTambienDevuelveElStock() {
+        Pedido pedido = pedidoService.crear(nuevoPedido(5));
+        inventario.volcar();
+
+        Pedido cancelado = pedidoService.actualizarEstado(pedido.getId(), Pedido.EstadoPedido.CANCELADO);
+
+        assertThat(cancelado.getEstado()).isEqualTo(Pedido.EstadoPedido.CANCELADO);
+        assertThat(stockEnBase()).isEqualTo(10);
+        assertThat(alcanza(10)).isTrue();
+        assertThat(alcanza(11)).isFalse();
+        assertThatThrownBy(() -> pedidoService.actualizarEstado(pedido.getId(), Pedido.EstadoPedido.PENDIENTE))
+                .hasMessage("Un pedido cancelado no puede cambiar de estado");
+    }
+
+    // Prueba una reserva y la revierte: no deja rastro en el contador
+    private boolean alcanza(int cantidad) {
+        return alcanza(inventario, cantidad);
+    }
+
+    private boolean alcanza(InventarioEnMemoria instancia, int cantidad) {
+        Boolean alcanza = transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return instancia.reservar(Map.of(productoId, cantidad)).isEmpty();
+        });
+        return Boolean.TRUE.equals(alcanza);
+    }
+
+    private int stockEnBase() {
+        return productoRepository.findById(productoId).orElseThrow().getStock();
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Pedido nuevoPedido(int cantidad) {
+        Usuario usuario = new Usuario();
+        usuario.setId(usuarioId);
+
+        Producto producto = new Producto();
+        producto.setId(productoId);
+
+        DetallePedido detalle = new DetallePedido();
+        detalle.setProducto(producto);
+        detalle.setCantidad(cantidad);
+
+        List<DetallePedido> detalles = new ArrayList<>();
+        detalles.add(detalle);
+
+        Pedido pedido = new Pedido();
+        pedido.setUsuario(usuario);
+        pedido.setDireccionEnvio("Calle Falsa 123");
+        pedido.setDetalles(detalles);
+        return pedido;
+    }
+}
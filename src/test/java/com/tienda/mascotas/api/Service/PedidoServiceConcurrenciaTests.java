@@ -0,0 +1,204 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Model.Categoria;
+import com.tienda.mascotas.api.Model.DetallePedido;
+import com.tienda.mascotas.api.Model.Pedido;
+import com.tienda.mascotas.api.Model.Producto;
+import com.tienda.mascotas.api.Model.Usuario;
+import com.tienda.mascotas.api.Repository.CategoriaRepository;
+import com.tienda.mascotas.api.Repository.PedidoRepository;
+import com.tienda.mascotas.api.Repository.ProductoRepository;
+import com.tienda.mascotas.api.Repository.UsuarioRepository;
+import com.tienda.mascotas.api.config.CacheConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Sin transacción de prueba: cada pedido tiene que confirmarse de verdad para competir por el stock
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        // Los bloqueos por fila usan la sintaxis del dialecto: en H2 tiene que ser el de H2
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"
+})
+@Import({PedidoService.class, InventarioEnMemoria.class, Paginacion.class, ContadorPedidos.class,
+        ReporteVentasService.class, CatalogoCache.class, VersionCatalogo.class, CacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PedidoServiceConcurrenciaTests {
+
+    private static final Logger log = LoggerFactory.getLogger(PedidoServiceConcurrenciaTests.class);
+
+    private static final int STOCK_INICIAL = 50;
+    private static final int HILOS = 8;
+    private static final int INTENTOS_POR_HILO = 20;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private PedidoRepository pedidoRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @AfterEach
+    void limpiar() {
+        pedidoRepository.deleteAll();
+        productoRepository.deleteAll();
+        categoriaRepository.deleteAll();
+        usuarioRepository.deleteAll();
+    }
+
+    @Test
+    void pedidosConcurrentesNoVendenMasQueElStockDisponible() throws Exception {
+        Categoria categoria = new Categoria();
+        categoria.setNombre("Juguetes");
+        categoria = categoriaRepository.save(categoria);
+
+        Producto producto = new Producto();
+        producto.setNombre("Pelota");
+        producto.setPrecio(new BigDecimal("5.00"));
+        producto.setStock(STOCK_INICIAL);
+        producto.setCategoria(categoria);
+        Long productoId = productoRepository.save(producto).getId();
+
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Luis");
+        usuario.setApellido("Gómez");
+        usuario.setEmail("luis@mail.com");
+        usuario.setPassword("secreto");
+        Long usuarioId = usuarioRepository.save(usuario).getId();
+
+        AtomicInteger vendidos = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        List<Future<?>> tareas = new ArrayList<>();
+
+        for (int h = 0; h < HILOS; h++) {
+            tareas.add(hilos.submit(() -> {
+                largada.await();
+                for (int i = 0; i < INTENTOS_POR_HILO; i++) {
+                    try {
+                        pedidoService.crear(nuevoPedido(usuarioId, productoId));
+                        vendidos.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        // Sin stock el pedido se rechaza y se sigue intentando; cualquier otro error falla la prueba
+                        if (e.getMessage() == null || !e.getMessage().startsWith("Stock insuficiente")) {
+                            throw e;
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long inicio = System.nanoTime();
+        largada.countDown();
+        hilos.shutdown();
+        assertThat(hilos.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+        double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+        for (Future<?> tarea : tareas) {
+            tarea.get();
+        }
+
+        int stockFinal = productoRepository.findById(productoId).orElseThrow().getStock();
+
+        // Hay más intentos que unidades: se vende exactamente el stock, ni una más ni una menos
+        assertThat(vendidos.get()).isEqualTo(STOCK_INICIAL);
+        assertThat(stockFinal).isZero();
+        assertThat(pedidoRepository.count()).isEqualTo(STOCK_INICIAL);
+
+        log.info("Producto caliente: {} pedidos confirmados, {} pedidos/s",
+                vendidos.get(), String.format("%.1f", vendidos.get() / segundos));
+    }
+
+    @Test
+    void cambiosDeEstadoSimultaneosAjustanLosContadoresUnaSolaVez() throws Exception {
+        Categoria categoria = new Categoria();
+        categoria.setNombre("Camas");
+        categoria = categoriaRepository.save(categoria);
+
+        Producto producto = new Producto();
+        producto.setNombre("Cucha");
+        producto.setPrecio(new BigDecimal("30.00"));
+        producto.setStock(5);
+        producto.setCategoria(categoria);
+        Long productoId = productoRepository.save(producto).getId();
+
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Sara");
+        usuario.setApellido("López");
+        usuario.setEmail("sara@mail.com");
+        usuario.setPassword("secreto");
+        Long usuarioId = usuarioRepository.save(usuario).getId();
+
+        Long pedidoId = pedidoService.crear(nuevoPedido(usuarioId, productoId)).getId();
+        long pendientes = pedidoService.contarPorEstado(Pedido.EstadoPedido.PENDIENTE);
+        long enviados = pedidoService.contarPorEstado(Pedido.EstadoPedido.ENVIADO);
+
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            tareas.add(hilos.submit(() -> {
+                largada.await();
+                return pedidoService.actualizarEstado(pedidoId, Pedido.EstadoPedido.ENVIADO);
+            }));
+        }
+        largada.countDown();
+        hilos.shutdown();
+        assertThat(hilos.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+        for (Future<?> tarea : tareas) {
+            tarea.get();
+        }
+
+        // Solo el primero en tomar el bloqueo ve PENDIENTE; los demás ya leen ENVIADO
+        assertThat(pedidoService.contarPorEstado(Pedido.EstadoPedido.PENDIENTE)).isEqualTo(pendientes - 1);
+        assertThat(pedidoService.contarPorEstado(Pedido.EstadoPedido.ENVIADO)).isEqualTo(enviados + 1);
+    }
+
+    private Pedido nuevoPedido(Long usuarioId, Long productoId) {
+        Usuario usuario = new Usuario();
+        usuario.setId(usuarioId);
+
+        Producto producto = new Producto();
+        producto.setId(productoId);
+
+        DetallePedido detalle = new DetallePedido();
+        detalle.setProducto(producto);
+        detalle.setCantidad(1);
+
+        List<DetallePedido> detalles = new ArrayList<>();
+        detalles.add(detalle);
+
+        Pedido pedido = new Pedido();
+        pedido.setUsuario(usuario);
+        pedido.setDireccionEnvio("Calle Falsa 123");
+        pedido.setDetalles(detalles);
+        return pedido;
+    }
+}
@@ -0,0 +1,221 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Model.Categoria;
+import com.tienda.mascotas.api.Model.DetallePedido;
+import com.tienda.mascotas.api.Model.FiltroPedidos;
+import com.tienda.mascotas.api.Model.Pagina;
+import com.tienda.mascotas.api.Model.Pedido;
+import com.tienda.mascotas.api.Model.Producto;
+import com.tienda.mascotas.api.Model.ResumenPedido;
+import com.tienda.mascotas.api.Model.Usuario;
+import com.tienda.mascotas.api.config.CacheConfig;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.tienda.mascotas.api.Service.PedidoServiceTests$RegistroSentencias",
+        // Las migraciones son SQL de PostgreSQL: en H2 el esquema lo genera Hibernate
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Import({PedidoService.class, InventarioEnMemoria.class, Paginacion.class, ContadorPedidos.class,
+        ReporteVentasService.class, CatalogoCache.class, VersionCatalogo.class, CacheConfig.class})
+class PedidoServiceTests {
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics estadisticas;
+    private Usuario usuario;
+    private final List<Producto> productos = new ArrayList<>();
+
+    @BeforeEach
+    void preparar() {
+        estadisticas = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        Categoria categoria = new Categoria();
+        categoria.setNombre("Alimentos");
+        entityManager.persist(categoria);
+
+        usuario = new Usuario();
+        usuario.setNombre("Ana");
+        usuario.setApellido("Pérez");
+        usuario.setEmail("ana@mail.com");
+        usuario.setPassword("secreto");
+        entityManager.persist(usuario);
+
+        for (int i = 0; i < 40; i++) {
+            Producto producto = new Producto();
+            producto.setNombre("Producto " + i);
+            producto.setPrecio(new BigDecimal("10.00"));
+            producto.setStock(100);
+            producto.setCategoria(categoria);
+            productos.add(entityManager.persist(producto));
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void crearEmiteLasMismasSentenciasSinImportarLaCantidadDeLineas() {
+        long pocasLineas = contarSentencias(2);
+        long insercionesPocas = estadisticas.getEntityInsertCount();
+        long muchasLineas = contarSentencias(40);
+        long insercionesMuchas = estadisticas.getEntityInsertCount();
+
+        // Se insertan todas las filas, pero en la misma cantidad de lotes JDBC
+        assertThat(insercionesPocas).isEqualTo(3);
+        assertThat(insercionesMuchas).isEqualTo(41);
+        assertThat(muchasLineas).isEqualTo(pocasLineas);
+    }
+
+    @Test
+    void listarPedidosDeUnUsuarioUsaUnaSolaConsulta() {
+        for (int i = 0; i < 5; i++) {
+            pedidoService.crear(nuevoPedido(3));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        estadisticas.clear();
+
+        List<Pedido> pedidos = pedidoService.obtenerPorUsuario(usuario.getId());
+        // Recorre lo mismo que Jackson al serializar la respuesta
+        for (Pedido pedido : pedidos) {
+            pedido.getUsuario().getEmail();
+            for (DetallePedido detalle : pedido.getDetalles()) {
+                detalle.getProducto().getCategoria().getNombre();
+            }
+        }
+
+        assertThat(pedidos).hasSize(5);
+        assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void resumenDeUnUsuarioSumaUnidadesEnUnaSolaConsulta() {
+        pedidoService.crear(nuevoPedido(2));
+        pedidoService.crear(nuevoPedido(5));
+        entityManager.flush();
+        entityManager.clear();
+        estadisticas.clear();
+
+        List<ResumenPedido> resumenes = pedidoService.obtenerResumenPorUsuario(usuario.getId());
+
+        assertThat(resumenes).extracting(ResumenPedido::getUnidades).containsExactlyInAnyOrder(2L, 5L);
+        assertThat(resumenes).extracting(ResumenPedido::getTotal)
+                .containsExactlyInAnyOrder(new BigDecimal("20.00"), new BigDecimal("50.00"));
+        assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void paginarPedidosDeUnUsuarioRecorreTodosSinRepetir() {
+        Usuario otro = new Usuario();
+        otro.setNombre("Luis");
+        otro.setApellido("Gómez");
+        otro.setEmail("luis@mail.com");
+        otro.setPassword("secreto");
+        entityManager.persist(otro);
+
+        List<Long> creados = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            creados.add(pedidoService.crear(nuevoPedido(1)).getId());
+        }
+        Pedido ajeno = nuevoPedido(1);
+        ajeno.getUsuario().setId(otro.getId());
+        pedidoService.crear(ajeno);
+        entityManager.flush();
+        entityManager.clear();
+
+        FiltroPedidos filtro = new FiltroPedidos(usuario.getId(), null, null, null);
+        List<Long> vistos = new ArrayList<>();
+        List<Integer> tamanos = new ArrayList<>();
+        String cursor = null;
+        do {
+            Pagina<Pedido> pagina = pedidoService.obtenerPagina(filtro, cursor, 2);
+            pagina.getContenido().forEach(pedido -> vistos.add(pedido.getId()));
+            tamanos.add(pagina.getContenido().size());
+            cursor = pagina.getSiguienteCursor();
+        } while (cursor != null);
+
+        // Mismo instante de creación en varios pedidos: el id desempata y ninguno se repite ni se salta
+        assertThat(tamanos).containsExactly(2, 2, 1);
+        assertThat(vistos).containsExactlyInAnyOrderElementsOf(creados);
+        assertThat(pedidoService.obtenerPagina(new FiltroPedidos(null, Pedido.EstadoPedido.CANCELADO, null, null), null, 2)
+                .getContenido()).isEmpty();
+    }
+
+    @Test
+    void unCursorAlteradoSeRechaza() {
+        assertThatThrownBy(() -> pedidoService.obtenerPagina(new FiltroPedidos(), "no-es-un-cursor", 2))
+                .hasMessage("Cursor inválido");
+    }
+
+    // Sentencias preparadas sin contar los nextval: el optimizador pooled pide un bloque nuevo
+    // cada 50 ids y el contexto (y sus secuencias) se comparte entre las pruebas de la clase
+    private long contarSentencias(int lineas) {
+        Pedido pedido = nuevoPedido(lineas);
+        estadisticas.clear();
+        RegistroSentencias.SENTENCIAS.clear();
+
+        pedidoService.crear(pedido);
+        entityManager.flush();
+        entityManager.clear();
+
+        return RegistroSentencias.SENTENCIAS.stream().filter(sql -> !sql.contains("nextval")).count();
+    }
+
+    private Pedido nuevoPedido(int lineas) {
+        Usuario referenciaUsuario = new Usuario();
+        referenciaUsuario.setId(usuario.getId());
+
+        List<DetallePedido> detalles = new ArrayList<>();
+        for (int i = 0; i < lineas; i++) {
+            Producto referenciaProducto = new Producto();
+            referenciaProducto.setId(productos.get(i).getId());
+
+            DetallePedido detalle = new DetallePedido();
+            detalle.setProducto(referenciaProducto);
+            detalle.setCantidad(1);
+            detalles.add(detalle);
+        }
+
+        Pedido pedido = new Pedido();
+        pedido.setUsuario(referenciaUsuario);
+        pedido.setDireccionEnvio("Av. Siempre Viva 742");
+        pedido.setDetalles(detalles);
+        return pedido;
+    }
+
+    // Hibernate lo instancia por nombre y lo llama una vez por cada sentencia que prepara
+    public static class RegistroSentencias implements StatementInspector {
+
+        static final List<String> SENTENCIAS = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SENTENCIAS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Model.Categoria;
+import com.tienda.mascotas.api.Model.ConsultaProductos;
+import com.tienda.mascotas.api.Model.Faceta;
+import com.tienda.mascotas.api.Model.FiltroProductos;
+import com.tienda.mascotas.api.Model.Pagina;
+import com.tienda.mascotas.api.Model.Producto;
+import com.tienda.mascotas.api.config.CacheConfig;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        // Las facetas agrupan según el dialecto: en H2 tiene que ser el de H2
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"
+})
+@Import({ProductoService.class, RegistroCategorias.class, InventarioEnMemoria.class, Paginacion.class,
+        CatalogoCache.class, VersionCatalogo.class, IndiceBusqueda.class, CacheConfig.class})
+class ProductoServiceTests {
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Categoria alimentos;
+    private final List<Long> alimentosConStock = new ArrayList<>();
+
+    @BeforeEach
+    void preparar() {
+        alimentos = new Categoria();
+        alimentos.setNombre("Alimentos");
+        entityManager.persist(alimentos);
+
+        Categoria juguetes = new Categoria();
+        juguetes.setNombre("Juguetes");
+        entityManager.persist(juguetes);
+
+        for (int i = 0; i < 7; i++) {
+            alimentosConStock.add(persistir("Alimento " + i, alimentos, 5, true).getId());
+        }
+        persistir("Alimento agotado", alimentos, 0, true);
+        persistir("Alimento inactivo", alimentos, 5, false);
+        persistir("Pelota", juguetes, 5, true);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void paginarPorCategoriaRecorreSoloLosActivosDeEsaCategoria() {
+        FiltroProductos filtro = new FiltroProductos(alimentos.getId(), null, null, null, null, null, null);
+
+        List<Long> vistos = recorrer(filtro, 3);
+
+        assertThat(vistos).hasSize(8).doesNotHaveDuplicates().isSorted();
+        assertThat(vistos).containsAll(alimentosConStock);
+    }
+
+    @Test
+    void paginarDisponiblesDejaAfueraLosAgotados() {
+        FiltroProductos filtro = new FiltroProductos(alimentos.getId(), null, null, true, null, null, null);
+
+        assertThat(recorrer(filtro, 3)).containsExactlyElementsOf(alimentosConStock);
+    }
+
+    @Test
+    void laUltimaPaginaNoTraeCursor() {
+        Pagina<Producto> pagina = productoService.obtenerPaginaFiltrada(new FiltroProductos(), null, 50);
+
+        assertThat(pagina.getContenido()).hasSize(9);
+        assertThat(pagina.getSiguienteCursor()).isNull();
+    }
+
+    @Test
+    void lasFacetasSoloSeCuentanEnLaPrimeraPagina() {
+        FiltroProductos filtro = new FiltroProductos(null, null, null, null, null, null, null);
+
+        ConsultaProductos primera = productoService.consultar(filtro, null, 4);
+        assertThat(primera.getCategorias()).extracting(Faceta::getNombre, Faceta::getCantidad)
+                .containsExactlyInAnyOrder(tuple("Alimentos", 8L), tuple("Juguetes", 1L));
+        assertThat(primera.getRangosPrecio()).extracting(Faceta::getCantidad).containsExactly(0L, 9L, 0L, 0L, 0L);
+
+        Statistics estadisticas = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        ConsultaProductos segunda = productoService.consultar(filtro, primera.getSiguienteCursor(), 4);
+
+        assertThat(segunda.getContenido()).hasSize(4);
+        assertThat(segunda.getCategorias()).isNull();
+        assertThat(segunda.getRangosPrecio()).isNull();
+        // Solo la consulta de la página, sin los dos conteos de facetas
+        assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private List<Long> recorrer(FiltroProductos filtro, int limite) {
+        List<Long> vistos = new ArrayList<>();
+        String cursor = null;
+        do {
+            Pagina<Producto> pagina = productoService.obtenerPaginaFiltrada(filtro, cursor, limite);
+            assertThat(pagina.getContenido().size()).isLessThanOrEqualTo(limite);
+            pagina.getContenido().forEach(producto -> vistos.add(producto.getId()));
+            cursor = pagina.getSiguienteCursor();
+        } while (cursor != null);
+        return vistos;
+    }
+
+    private Producto persistir(String nombre, Categoria categoria, int stock, boolean activo) {
+        Producto producto = new Producto();
+        producto.setNombre(nombre);
+        producto.setPrecio(new BigDecimal("10.00"));
+        producto.setStock(stock);
+        producto.setActivo(activo);
+        producto.setCategoria(categoria);
+        return entityManager.persist(producto);
+    }
+}
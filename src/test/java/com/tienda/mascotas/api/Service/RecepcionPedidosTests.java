@@ -0,0 +1,149 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Model.DetallePedido;
+import com.tienda.mascotas.api.Model.Pedido;
+import com.tienda.mascotas.api.Model.Producto;
+import com.tienda.mascotas.api.Model.SolicitudPedido;
+import com.tienda.mascotas.api.Model.Usuario;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecepcionPedidosTests {
+
+    private RecepcionPedidos recepcion;
+    private PedidoService pedidoService;
+    private final CountDownLatch liberarPrimero = new CountDownLatch(1);
+    private final CountDownLatch primeroTomado = new CountDownLatch(1);
+    private final AtomicLong ids = new AtomicLong();
+
+    @BeforeEach
+    void preparar() {
+        pedidoService = mock(PedidoService.class);
+        // El pedido "bloqueante" retiene al único worker hasta que la prueba lo suelte
+        when(pedidoService.crear(any())).thenAnswer(invocacion -> {
+            Pedido pedido = invocacion.getArgument(0);
+            if ("bloqueante".equals(pedido.getNotas())) {
+                primeroTomado.countDown();
+                liberarPrimero.await(10, TimeUnit.SECONDS);
+            }
+            if ("inválido".equals(pedido.getNotas())) {
+                throw new RuntimeException("Stock insuficiente para: Pelota");
+            }
+            pedido.setId(ids.incrementAndGet());
+            return pedido;
+        });
+
+        recepcion = new RecepcionPedidos();
+        ReflectionTestUtils.setField(recepcion, "habilitado", true);
+        ReflectionTestUtils.setField(recepcion, "capacidad", 3);
+        ReflectionTestUtils.setField(recepcion, "hilos", 1);
+        ReflectionTestUtils.setField(recepcion, "tamanoLote", 20);
+        ReflectionTestUtils.setField(recepcion, "pedidoService", pedidoService);
+        ReflectionTestUtils.setField(recepcion, "transactionTemplate",
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        recepcion.iniciar();
+    }
+
+    @AfterEach
+    void terminar() throws InterruptedException {
+        liberarPrimero.countDown();
+        recepcion.detener();
+    }
+
+    @Test
+    void conLaColaLlenaNoSeEncolaYNoQuedaRegistrada() throws InterruptedException {
+        recepcion.encolar(pedido("bloqueante"));
+        assertThat(primeroTomado.await(10, TimeUnit.SECONDS)).isTrue();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(recepcion.encolar(pedido("normal"))).isNotNull();
+        }
+
+        SolicitudPedido rechazada = recepcion.encolar(pedido("normal"));
+
+        assertThat(rechazada).isNull();
+    }
+
+    @Test
+    void unPedidoInvalidoEnElLoteSoloRechazaEsePedido() throws InterruptedException {
+        recepcion.encolar(pedido("bloqueante"));
+        assertThat(primeroTomado.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // Los tres quedan en la cola y el worker los toma juntos en un solo lote
+        SolicitudPedido primero = recepcion.encolar(pedido("normal"));
+        SolicitudPedido invalido = recepcion.encolar(pedido("inválido"));
+        SolicitudPedido ultimo = recepcion.encolar(pedido("normal"));
+        liberarPrimero.countDown();
+
+        esperarFinalizadas(List.of(primero, invalido, ultimo));
+
+        assertThat(primero.getEstado()).isEqualTo(SolicitudPedido.EstadoSolicitud.COMPLETADO);
+        assertThat(ultimo.getEstado()).isEqualTo(SolicitudPedido.EstadoSolicitud.COMPLETADO);
+        assertThat(invalido.getEstado()).isEqualTo(SolicitudPedido.EstadoSolicitud.RECHAZADO);
+        assertThat(invalido.getMensaje()).isEqualTo("Stock insuficiente para: Pelota");
+        assertThat(primero.getPedidoId()).isNotEqualTo(ultimo.getPedidoId());
+        // El lote revertido llegó hasta el inválido; después se reintentó cada uno por separado
+        verify(pedidoService, times(2)).crear(argThat(p -> "inválido".equals(p.getNotas())));
+    }
+
+    @Test
+    void unCuerpoIncompletoSeRechazaAntesDeEncolar() {
+        Pedido sinUsuario = pedido("normal");
+        sinUsuario.setUsuario(null);
+        Pedido sinCantidad = pedido("normal");
+        sinCantidad.getDetalles().get(0).setCantidad(null);
+
+        assertThatThrownBy(() -> recepcion.encolar(sinUsuario))
+                .hasMessage("El pedido debe indicar el usuario");
+        assertThatThrownBy(() -> recepcion.encolar(sinCantidad))
+                .hasMessage("La cantidad debe ser mayor a cero");
+    }
+
+    private static void esperarFinalizadas(List<SolicitudPedido> solicitudes) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!solicitudes.stream().allMatch(SolicitudPedido::isFinalizada) && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static Pedido pedido(String notas) {
+        Usuario usuario = new Usuario();
+        usuario.setId(1L);
+
+        Producto producto = new Producto();
+        producto.setId(1L);
+
+        DetallePedido detalle = new DetallePedido();
+        detalle.setProducto(producto);
+        detalle.setCantidad(1);
+
+        List<DetallePedido> detalles = new ArrayList<>();
+        detalles.add(detalle);
+
+        Pedido pedido = new Pedido();
+        pedido.setUsuario(usuario);
+        pedido.setDireccionEnvio("Calle Falsa 123");
+        pedido.setNotas(notas);
+        pedido.setDetalles(detalles);
+        return pedido;
+    }
+}
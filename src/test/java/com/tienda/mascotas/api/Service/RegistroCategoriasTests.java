@@ -0,0 +1,111 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Model.Categoria;
+import com.tienda.mascotas.api.Repository.CategoriaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Sin transacción de prueba: la instantánea se reemplaza después del commit
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Import(RegistroCategorias.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RegistroCategoriasTests {
+
+    @Autowired
+    private RegistroCategorias registroCategorias;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long alimentosId;
+
+    @BeforeEach
+    void preparar() {
+        Categoria alimentos = new Categoria();
+        alimentos.setNombre("Alimentos");
+        alimentosId = categoriaRepository.save(alimentos).getId();
+        registroCategorias.categoriasModificadas();
+    }
+
+    @AfterEach
+    void limpiar() {
+        categoriaRepository.deleteAll();
+    }
+
+    @Test
+    void modificarLoQueDevuelveNoCambiaLaInstantanea() {
+        registroCategorias.porId(alimentosId).orElseThrow().setNombre("Pisado");
+        registroCategorias.todas().get(0).setActiva(false);
+        registroCategorias.activas().clear();
+        registroCategorias.porNombreAproximado("alimentos").orElseThrow().setDescripcion("Pisada");
+
+        Categoria categoria = registroCategorias.porId(alimentosId).orElseThrow();
+        assertThat(categoria.getNombre()).isEqualTo("Alimentos");
+        assertThat(categoria.getDescripcion()).isNull();
+        assertThat(registroCategorias.activas()).extracting(Categoria::getNombre).containsExactly("Alimentos");
+        assertThat(registroCategorias.existeNombre("Alimentos")).isTrue();
+    }
+
+    @Test
+    void laInstantaneaSeReemplazaRecienDespuesDelCommit() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Categoria categoria = categoriaRepository.findById(alimentosId).orElseThrow();
+            categoria.setNombre("Alimento balanceado");
+            categoria.setActiva(false);
+            categoriaRepository.saveAndFlush(categoria);
+            registroCategorias.categoriasModificadas();
+
+            // Todavía sin confirmar: se sigue leyendo la instantánea anterior
+            assertThat(registroCategorias.existeNombre("Alimentos")).isTrue();
+            assertThat(registroCategorias.activas()).hasSize(1);
+        });
+
+        assertThat(registroCategorias.existeNombre("Alimentos")).isFalse();
+        assertThat(registroCategorias.porNombreAproximado(" alimento BALANCEADO ")).isPresent();
+        assertThat(registroCategorias.activas()).isEmpty();
+    }
+
+    @Test
+    void unaEscrituraRevertidaNoReemplazaLaInstantanea() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Categoria juguetes = new Categoria();
+            juguetes.setNombre("Juguetes");
+            categoriaRepository.saveAndFlush(juguetes);
+            registroCategorias.categoriasModificadas();
+            status.setRollbackOnly();
+        });
+
+        assertThat(registroCategorias.todas()).extracting(Categoria::getNombre).containsExactly("Alimentos");
+    }
+
+    @Test
+    void unaCategoriaCreadaPorOtraInstanciaSeBuscaEnLaBase() {
+        // Escrita sin avisar al registro, como desde otra instancia
+        Categoria juguetes = new Categoria();
+        juguetes.setNombre("Juguetes");
+        Long juguetesId = categoriaRepository.save(juguetes).getId();
+
+        assertThat(registroCategorias.existe(juguetesId)).isTrue();
+        assertThat(registroCategorias.existe(juguetesId + 1000)).isFalse();
+        assertThat(registroCategorias.porNombreAproximado(" JUGUETES")).map(Categoria::getId).contains(juguetesId);
+        assertThat(registroCategorias.porNombreAproximado("Peceras")).isEmpty();
+
+        // El acierto en la base recargó la instantánea
+        assertThat(registroCategorias.todas()).extracting(Categoria::getNombre).containsExactly("Alimentos", "Juguetes");
+    }
+}
@@ -0,0 +1,118 @@
+package com.tienda.mascotas.api.Service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RegistroIdempotenciaTests {
+
+    private RegistroIdempotencia registro;
+    private final AtomicInteger ejecuciones = new AtomicInteger();
+
+    @BeforeEach
+    void preparar() {
+        registro = new RegistroIdempotencia();
+        ReflectionTestUtils.setField(registro, "maxEntradas", 2);
+        ReflectionTestUtils.setField(registro, "ttlMinutos", 60L);
+        ReflectionTestUtils.setField(registro, "esperaSegundos", 5L);
+    }
+
+    @Test
+    void elReintentoDelMismoClienteRepiteLaRespuesta() {
+        ResponseEntity<?> original = registro.ejecutar("usuario:1", "k1", "a", this::crear);
+        ResponseEntity<?> reintento = registro.ejecutar("usuario:1", "k1", "a", this::crear);
+
+        assertThat(ejecuciones.get()).isEqualTo(1);
+        assertThat(reintento.getBody()).isEqualTo(original.getBody());
+        assertThat(reintento.getHeaders().getFirst("Idempotent-Replayed")).isEqualTo("true");
+    }
+
+    @Test
+    void otroClienteConLaMismaClaveNoRecibeLaRespuestaAjena() {
+        registro.ejecutar("usuario:1", "k1", "a", this::crear);
+        ResponseEntity<?> otro = registro.ejecutar("usuario:2", "k1", "a", this::crear);
+
+        assertThat(ejecuciones.get()).isEqualTo(2);
+        assertThat(otro.getBody()).isEqualTo("pedido 2");
+    }
+
+    @Test
+    void laMismaClaveConOtroCuerpoSeRechaza() {
+        registro.ejecutar("usuario:1", "k1", "a", this::crear);
+        ResponseEntity<?> distinto = registro.ejecutar("usuario:1", "k1", "b", this::crear);
+
+        assertThat(ejecuciones.get()).isEqualTo(1);
+        assertThat(distinto.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @Test
+    void elLimiteDeEntradasNoDescartaLasQueSiguenEnProceso() throws Exception {
+        CountDownLatch empezo = new CountDownLatch(1);
+        CountDownLatch terminar = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<?>> enProceso = CompletableFuture.supplyAsync(() ->
+                registro.ejecutar("usuario:1", "lenta", "a", () -> {
+                    empezo.countDown();
+                    esperar(terminar);
+                    return crear();
+                }));
+        assertThat(empezo.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Más claves terminadas que el máximo: se van descartando esas, no la que sigue en proceso
+        for (int i = 0; i < 5; i++) {
+            registro.ejecutar("usuario:1", "k" + i, "a", this::crear);
+        }
+        CompletableFuture<ResponseEntity<?>> reintento = CompletableFuture.supplyAsync(() ->
+                registro.ejecutar("usuario:1", "lenta", "a", this::crear));
+        terminar.countDown();
+
+        assertThat(reintento.get(5, TimeUnit.SECONDS).getHeaders().getFirst("Idempotent-Replayed")).isEqualTo("true");
+        assertThat(reintento.get().getBody()).isEqualTo(enProceso.get().getBody());
+        assertThat(ejecuciones.get()).isEqualTo(6);
+    }
+
+    @Test
+    void purgarSigueDespuesDeUnaEntradaEnProceso() throws Exception {
+        ReflectionTestUtils.setField(registro, "maxEntradas", 100);
+        ReflectionTestUtils.setField(registro, "ttlMinutos", 0L);
+        CountDownLatch empezo = new CountDownLatch(1);
+        CountDownLatch terminar = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<?>> enProceso = CompletableFuture.supplyAsync(() ->
+                registro.ejecutar("usuario:1", "lenta", "a", () -> {
+                    empezo.countDown();
+                    esperar(terminar);
+                    return crear();
+                }));
+        assertThat(empezo.await(5, TimeUnit.SECONDS)).isTrue();
+        registro.ejecutar("usuario:1", "vencida", "a", this::crear);
+        Thread.sleep(5);
+
+        registro.purgar();
+        terminar.countDown();
+        enProceso.get(5, TimeUnit.SECONDS);
+
+        // Con la entrada purgada, el reintento vuelve a ejecutarse
+        registro.ejecutar("usuario:1", "vencida", "a", this::crear);
+        assertThat(ejecuciones.get()).isEqualTo(3);
+    }
+
+    private ResponseEntity<?> crear() {
+        return ResponseEntity.status(HttpStatus.CREATED).body("pedido " + ejecuciones.incrementAndGet());
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
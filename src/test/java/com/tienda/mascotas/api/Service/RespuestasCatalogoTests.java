@@ -0,0 +1,150 @@
+package com.tienda.mascotas.api.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RespuestasCatalogoTests {
+
+    private static final Logger log = LoggerFactory.getLogger(RespuestasCatalogoTests.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final VersionCatalogo versionCatalogo = new VersionCatalogo();
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger armados = new AtomicInteger();
+    private RespuestasCatalogo respuestas;
+
+    @BeforeEach
+    void preparar() {
+        respuestas = new RespuestasCatalogo();
+        ReflectionTestUtils.setField(respuestas, "versionCatalogo", versionCatalogo);
+        ReflectionTestUtils.setField(respuestas, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(respuestas, "gzipHabilitado", true);
+        ReflectionTestUtils.setField(respuestas, "ttlSegundos", 600L);
+        respuestas.reloj = nanos::get;
+        respuestas.iniciar();
+    }
+
+    @Test
+    void respetaLosQValuesDeAcceptEncoding() {
+        assertThat(aceptaGzip("gzip, deflate, br")).isTrue();
+        assertThat(aceptaGzip("deflate, GZIP;q=0.5")).isTrue();
+        assertThat(aceptaGzip("gzip;q=0")).isFalse();
+        assertThat(aceptaGzip("gzip; q=0.0, *")).isFalse();
+        assertThat(aceptaGzip("br, *;q=0.1")).isTrue();
+        assertThat(aceptaGzip("*;q=0")).isFalse();
+        assertThat(aceptaGzip("identity")).isFalse();
+        assertThat(aceptaGzip(null)).isFalse();
+    }
+
+    @Test
+    void conGzipRechazadoRespondeSinComprimir() {
+        ResponseEntity<byte[]> respuesta = responder("gzip;q=0, identity", this::contenido);
+
+        assertThat(respuesta.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(new String(respuesta.getBody())).startsWith("[{");
+    }
+
+    @Test
+    void elCuerpoSeReusaHastaQueVenceOCambiaElCatalogo() {
+        responder(null, this::contenido);
+        responder(null, this::contenido);
+        assertThat(armados.get()).isEqualTo(1);
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(599));
+        responder(null, this::contenido);
+        assertThat(armados.get()).isEqualTo(1);
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        responder(null, this::contenido);
+        assertThat(armados.get()).isEqualTo(2);
+
+        versionCatalogo.avanzar();
+        responder(null, this::contenido);
+        assertThat(armados.get()).isEqualTo(3);
+    }
+
+    // Solo informa: cuerpo pre-serializado contra serializar y comprimir en cada GET
+    @Test
+    void comparaLaRespuestaCacheadaConSerializarCadaVez() throws Exception {
+        List<Map<String, Object>> productos = productos(2000);
+        int repeticiones = 200;
+        for (int i = 0; i < 20; i++) {
+            responder("gzip", () -> productos);
+            serializarYComprimir(productos);
+        }
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < repeticiones; i++) {
+            responder("gzip", () -> productos);
+        }
+        double cacheada = (System.nanoTime() - inicio) / 1_000_000.0 / repeticiones;
+
+        inicio = System.nanoTime();
+        for (int i = 0; i < repeticiones; i++) {
+            serializarYComprimir(productos);
+        }
+        double cadaVez = (System.nanoTime() - inicio) / 1_000_000.0 / repeticiones;
+
+        log.info("2000 productos con gzip: cacheada {} ms/respuesta, serializando cada vez {} ms/respuesta",
+                String.format("%.3f", cacheada), String.format("%.3f", cadaVez));
+        assertThat(responder("gzip", () -> productos).getBody()).isEqualTo(serializarYComprimir(productos));
+    }
+
+    private ResponseEntity<byte[]> responder(String acceptEncoding, Supplier<?> contenido) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/productos/activos");
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return respuestas.responder("activos", new ServletWebRequest(request, new MockHttpServletResponse()), contenido);
+    }
+
+    private static boolean aceptaGzip(String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/productos/activos");
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return RespuestasCatalogo.aceptaGzip(new ServletWebRequest(request));
+    }
+
+    private Object contenido() {
+        armados.incrementAndGet();
+        return productos(3);
+    }
+
+    private byte[] serializarYComprimir(Object contenido) throws Exception {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(objectMapper.writeValueAsBytes(contenido));
+        }
+        return salida.toByteArray();
+    }
+
+    private static List<Map<String, Object>> productos(int cantidad) {
+        List<Map<String, Object>> productos = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            productos.add(Map.of("id", i, "nombre", "Producto " + i, "precio", 10.5, "stock", i % 30));
+        }
+        return productos;
+    }
+}
@@ -0,0 +1,213 @@
+package com.tienda.mascotas.api.Service;
+
+import com.tienda.mascotas.api.Model.Usuario;
+import com.tienda.mascotas.api.Repository.UsuarioRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Sin transacción de prueba: como en producción, cada llamada al repositorio confirma por su cuenta
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "seguridad.bcrypt.hilos=2"
+})
+@Import({UsuarioService.class, FiltroEmails.class, VerificadorContrasenas.class, Paginacion.class,
+        IndiceBusqueda.class, UsuarioServiceTests.Soporte.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UsuarioServiceTests {
+
+    private static final Logger log = LoggerFactory.getLogger(UsuarioServiceTests.class);
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private FiltroEmails filtroEmails;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private VerificadorContrasenas verificadorContrasenas;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void preparar() {
+        usuarioRepository.save(usuario("ana@mail.com"));
+        // El contexto se comparte entre pruebas: filtro y contadores nuevos en cada una
+        meterRegistry.clear();
+        filtroEmails.iniciar();
+        filtroEmails.cargar();
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @AfterEach
+    void limpiar() {
+        usuarioRepository.deleteAll();
+    }
+
+    @Test
+    void unAltaConEmailNuevoSoloHaceElInsert() {
+        usuarioService.crear(usuario("nuevo@mail.com"));
+
+        assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(consultas("ausente")).isEqualTo(1);
+    }
+
+    @Test
+    void unEmailRegistradoSeRechazaConLaConsultaALaBase() {
+        assertThatThrownBy(() -> usuarioService.crear(usuario("ana@mail.com")))
+                .hasMessage("El email ya está registrado");
+
+        assertThat(consultas("existente")).isEqualTo(1);
+        assertThat(usuarioRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void unAltaSimultaneaLaDecideLaRestriccionUnica() {
+        // Otra instancia registró el email: este filtro no lo conoce y deja pasar el alta sin consultar
+        usuarioRepository.save(usuario("carrera@mail.com"));
+
+        assertThatThrownBy(() -> usuarioService.crear(usuario("carrera@mail.com")))
+                .hasMessage("El email ya está registrado");
+
+        assertThat(consultas("ausente")).isEqualTo(1);
+        assertThat(usuarioRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void elLoginNoEsperaAQueSeGuardeElHashRecalculado() throws Exception {
+        Long id = usuarioService.crear(usuario("rehash@mail.com")).getId();
+        String hashViejo = usuarioRepository.findById(id).orElseThrow().getPassword();
+
+        // El hilo que guarda los hashes queda ocupado hasta abrir el latch
+        CountDownLatch liberar = new CountDownLatch(1);
+        ThreadPoolExecutor rehashes = (ThreadPoolExecutor) ReflectionTestUtils.getField(usuarioService, "rehashes");
+        rehashes.execute(() -> esperar(liberar));
+
+        ReflectionTestUtils.setField(verificadorContrasenas, "rehash", true);
+        ReflectionTestUtils.setField(verificadorContrasenas, "passwordEncoder", new BCryptPasswordEncoder(5));
+        try {
+            assertThat(usuarioService.autenticar("rehash@mail.com", "secreto").get(10, TimeUnit.SECONDS)).isPresent();
+            assertThat(usuarioRepository.findById(id).orElseThrow().getPassword()).isEqualTo(hashViejo);
+        } finally {
+            ReflectionTestUtils.setField(verificadorContrasenas, "rehash", false);
+            ReflectionTestUtils.setField(verificadorContrasenas, "passwordEncoder", passwordEncoder);
+            liberar.countDown();
+        }
+
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (usuarioRepository.findById(id).orElseThrow().getPassword().equals(hashViejo) && System.nanoTime() < limite) {
+            Thread.sleep(20);
+        }
+        String hashNuevo = usuarioRepository.findById(id).orElseThrow().getPassword();
+        assertThat(hashNuevo).startsWith("$2a$05$");
+        assertThat(passwordEncoder.matches("secreto", hashNuevo)).isTrue();
+    }
+
+    // Solo informa los tiempos; las sentencias por alta sí se verifican
+    @Test
+    void comparaElAltaConYSinFiltro() {
+        int altas = 300;
+        for (int i = 0; i < 50; i++) {
+            usuarioService.crear(usuario("calentamiento" + i + "@mail.com"));
+        }
+
+        ReflectionTestUtils.setField(filtroEmails, "listo", false);
+        estadisticas.clear();
+        long inicio = System.nanoTime();
+        for (int i = 0; i < altas; i++) {
+            usuarioService.crear(usuario("sin-filtro" + i + "@mail.com"));
+        }
+        double sinFiltro = (System.nanoTime() - inicio) / 1_000_000.0 / altas;
+        long sentenciasSinFiltro = estadisticas.getPrepareStatementCount();
+
+        ReflectionTestUtils.setField(filtroEmails, "listo", true);
+        estadisticas.clear();
+        inicio = System.nanoTime();
+        for (int i = 0; i < altas; i++) {
+            usuarioService.crear(usuario("con-filtro" + i + "@mail.com"));
+        }
+        double conFiltro = (System.nanoTime() - inicio) / 1_000_000.0 / altas;
+        long sentenciasConFiltro = estadisticas.getPrepareStatementCount();
+
+        log.info("{} altas: sin filtro {} ms/alta ({} altas/s), con filtro {} ms/alta ({} altas/s)", altas,
+                String.format("%.3f", sinFiltro), String.format("%.0f", 1000 / sinFiltro),
+                String.format("%.3f", conFiltro), String.format("%.0f", 1000 / conFiltro));
+        assertThat(sentenciasSinFiltro).isEqualTo(2L * altas);
+        assertThat(sentenciasConFiltro).isEqualTo(altas);
+    }
+
+    private double consultas(String resultado) {
+        return meterRegistry.get("usuarios.bloom.consultas").tag("resultado", resultado).counter().count();
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Usuario usuario(String email) {
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Nombre");
+        usuario.setApellido("Apellido");
+        usuario.setEmail(email);
+        usuario.setPassword("secreto");
+        return usuario;
+    }
+
+    @TestConfiguration
+    static class Soporte {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        // Costo mínimo: la prueba mide la base, no BCrypt
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            return new BCryptPasswordEncoder(4);
+        }
+    }
+}
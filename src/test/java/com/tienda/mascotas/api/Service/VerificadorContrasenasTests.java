@@ -0,0 +1,155 @@
+package com.tienda.mascotas.api.Service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerificadorContrasenasTests {
+
+    private static final int HILOS_TOMCAT = 8;
+
+    private VerificadorContrasenas verificador;
+    private BCryptPasswordEncoder encoder;
+    private ExecutorService tomcat;
+
+    @BeforeEach
+    void preparar() {
+        encoder = new BCryptPasswordEncoder(10);
+        verificador = new VerificadorContrasenas();
+        ReflectionTestUtils.setField(verificador, "passwordEncoder", encoder);
+        ReflectionTestUtils.setField(verificador, "hilos", 1);
+        ReflectionTestUtils.setField(verificador, "capacidadCola", 4);
+        verificador.iniciar();
+        tomcat = Executors.newFixedThreadPool(HILOS_TOMCAT);
+    }
+
+    @AfterEach
+    void terminar() {
+        tomcat.shutdownNow();
+        verificador.detener();
+    }
+
+    @Test
+    void unaRafagaDeLoginsNoDemoraAlCatalogo() throws Exception {
+        String hash = encoder.encode("secreto");
+        CountDownLatch enBCrypt = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        ReflectionTestUtils.setField(verificador, "passwordEncoder", new EncoderRetenido(encoder, enBCrypt, liberar));
+
+        // El primer login ocupa el único hilo de BCrypt hasta que se abra el latch
+        CompletableFuture<VerificadorContrasenas.Verificacion> primero = verificador.verificar("secreto", hash);
+        assertThat(enBCrypt.await(10, TimeUnit.SECONDS)).isTrue();
+
+        List<Future<CompletableFuture<VerificadorContrasenas.Verificacion>>> logins = new ArrayList<>();
+        List<Future<?>> catalogo = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            if (i % 2 == 0) {
+                logins.add(tomcat.submit(() -> verificador.verificar("secreto", hash)));
+            } else {
+                catalogo.add(tomcat.submit(() -> {
+                    // Una lectura de catálogo ya cacheada: trabajo corto en el hilo de Tomcat
+                    String cuerpo = String.join(",", Collections.nCopies(100, "producto"));
+                    assertThat(cuerpo).isNotEmpty();
+                }));
+            }
+        }
+
+        // Todo vuelve con BCrypt todavía retenido: ningún hilo de Tomcat esperó a un login
+        for (Future<?> lectura : catalogo) {
+            lectura.get(10, TimeUnit.SECONDS);
+        }
+        List<CompletableFuture<VerificadorContrasenas.Verificacion>> aceptados = new ArrayList<>();
+        int rechazadosAlInstante = 0;
+        for (Future<CompletableFuture<VerificadorContrasenas.Verificacion>> solicitud : logins) {
+            CompletableFuture<VerificadorContrasenas.Verificacion> login = solicitud.get(10, TimeUnit.SECONDS);
+            // El rechazo ya está resuelto cuando vuelve la llamada
+            if (login.isCompletedExceptionally()) {
+                assertThat(login).failsWithin(0, TimeUnit.SECONDS)
+                        .withThrowableThat().matches(VerificadorContrasenas::esRechazo);
+                rechazadosAlInstante++;
+            } else {
+                aceptados.add(login);
+            }
+        }
+        assertThat(liberar.getCount()).isEqualTo(1);
+        assertThat(primero).isNotDone();
+
+        // Solo entran los que caben en la cola
+        assertThat(aceptados).hasSize(4);
+        assertThat(rechazadosAlInstante).isEqualTo(96);
+
+        liberar.countDown();
+        assertThat(primero.get(30, TimeUnit.SECONDS).valida()).isTrue();
+        for (CompletableFuture<VerificadorContrasenas.Verificacion> login : aceptados) {
+            assertThat(login.get(30, TimeUnit.SECONDS).valida()).isTrue();
+        }
+    }
+
+    @Test
+    void rehashSoloConCostoMenorAlConfigurado() throws Exception {
+        ReflectionTestUtils.setField(verificador, "rehash", true);
+        String hashViejo = new BCryptPasswordEncoder(4).encode("secreto");
+        String hashActual = encoder.encode("secreto");
+
+        VerificadorContrasenas.Verificacion vieja = verificador.verificar("secreto", hashViejo).get(10, TimeUnit.SECONDS);
+        VerificadorContrasenas.Verificacion actual = verificador.verificar("secreto", hashActual).get(10, TimeUnit.SECONDS);
+        VerificadorContrasenas.Verificacion incorrecta = verificador.verificar("otra", hashViejo).get(10, TimeUnit.SECONDS);
+
+        assertThat(vieja.valida()).isTrue();
+        assertThat(vieja.hashNuevo()).startsWith("$2a$10$");
+        assertThat(encoder.matches("secreto", vieja.hashNuevo())).isTrue();
+        assertThat(actual.hashNuevo()).isNull();
+        assertThat(incorrecta.valida()).isFalse();
+        assertThat(incorrecta.hashNuevo()).isNull();
+    }
+
+    // Avisa cuando un hilo de BCrypt empieza a comparar y lo retiene hasta que se abra el latch
+    private static class EncoderRetenido implements PasswordEncoder {
+        private final PasswordEncoder encoder;
+        private final CountDownLatch enBCrypt;
+        private final CountDownLatch liberar;
+
+        EncoderRetenido(PasswordEncoder encoder, CountDownLatch enBCrypt, CountDownLatch liberar) {
+            this.encoder = encoder;
+            this.enBCrypt = enBCrypt;
+            this.liberar = liberar;
+        }
+
+        @Override
+        public String encode(CharSequence password) {
+            return encoder.encode(password);
+        }
+
+        @Override
+        public boolean matches(CharSequence password, String hash) {
+            enBCrypt.countDown();
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            return encoder.matches(password, hash);
+        }
+
+        @Override
+        public boolean upgradeEncoding(String hash) {
+            return encoder.upgradeEncoding(hash);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.tienda.mascotas.api.Service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VersionCatalogoTests {
+
+    private final VersionCatalogo versionCatalogo = new VersionCatalogo();
+
+    @Test
+    void conElEtagActualResponde304() {
+        MockHttpServletResponse primera = consultar(null);
+
+        MockHttpServletResponse segunda = consultar(primera.getHeader(HttpHeaders.ETAG));
+
+        assertThat(segunda.getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    void unaEscrituraEnElMismoSegundoInvalidaLaRespuesta() {
+        MockHttpServletResponse primera = consultar(null);
+        String fecha = primera.getHeader(HttpHeaders.LAST_MODIFIED);
+        versionCatalogo.avanzar();
+
+        // Sin Last-Modified, un If-Modified-Since con la misma fecha no alcanza para un 304
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/productos");
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, "Thu, 01 Jan 2099 00:00:00 GMT");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        versionCatalogo.noModificado(new ServletWebRequest(request, response));
+
+        assertThat(fecha).isNull();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(consultar(primera.getHeader(HttpHeaders.ETAG)).getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpServletResponse consultar(String etag) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/productos");
+        if (etag != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        versionCatalogo.noModificado(new ServletWebRequest(request, response));
+        return response;
+    }
+}
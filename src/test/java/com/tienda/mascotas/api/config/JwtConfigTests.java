@@ -0,0 +1,120 @@
+package com.tienda.mascotas.api.config;
+
+import com.tienda.mascotas.api.Model.Usuario;
+import com.tienda.mascotas.api.Service.EmisorTokens;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtConfigTests {
+
+    private static final String SECRETO = "un-secreto-de-prueba-de-32-bytes!";
+
+    private final JwtConfig jwtConfig = new JwtConfig();
+    private final RelojMovil reloj = new RelojMovil();
+    private EmisorTokens emisor;
+    private JwtDecoder decoder;
+
+    @BeforeEach
+    void preparar() {
+        SecretKey clave = jwtConfig.claveJwt(SECRETO, new MockEnvironment());
+        emisor = new EmisorTokens();
+        ReflectionTestUtils.setField(emisor, "jwtEncoder", jwtConfig.jwtEncoder(clave));
+        ReflectionTestUtils.setField(emisor, "expiracionMs", Duration.ofMinutes(10).toMillis());
+        decoder = JwtConfig.decodificador(clave, 100, 300, reloj);
+    }
+
+    @Test
+    void elTokenEmitidoSeVerificaConSusClaims() {
+        Jwt jwt = decoder.decode(emisor.emitir(usuario(7L, Usuario.Role.ADMIN)));
+
+        assertThat(jwt.getSubject()).isEqualTo("7");
+        assertThat(jwt.getClaimAsString("email")).isEqualTo("ana@mail.com");
+        assertThat(jwt.getClaimAsString("iss")).isEqualTo(JwtConfig.EMISOR);
+        assertThat(jwtConfig.jwtAuthenticationConverter().convert(jwt).getAuthorities())
+                .extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_ADMIN");
+    }
+
+    @Test
+    void unaFirmaAlteradaSeRechaza() {
+        String token = emisor.emitir(usuario(7L, Usuario.Role.USER));
+        String otraFirma = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> decoder.decode(otraFirma)).isInstanceOf(BadJwtException.class);
+    }
+
+    @Test
+    void unTokenGuardadoDejaDeValerAlVencer() {
+        String token = emisor.emitir(usuario(7L, Usuario.Role.USER));
+        Jwt primero = decoder.decode(token);
+
+        reloj.avanzar(Duration.ofMinutes(5));
+        assertThat(decoder.decode(token)).isSameAs(primero);
+
+        // Pasado el vencimiento y el margen de Nimbus: la caché no lo devuelve y la verificación lo rechaza
+        reloj.avanzar(Duration.ofMinutes(7));
+        assertThatThrownBy(() -> decoder.decode(token))
+                .isInstanceOf(JwtValidationException.class)
+                .hasMessageContaining("expired");
+    }
+
+    @Test
+    void enProdNoArrancaSinSecreto() {
+        MockEnvironment prod = new MockEnvironment();
+        prod.setActiveProfiles("prod");
+
+        assertThatThrownBy(() -> jwtConfig.claveJwt(" ", prod))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("JWT_SECRET");
+        assertThat(jwtConfig.claveJwt("", new MockEnvironment()).getEncoded()).hasSize(32);
+        assertThatThrownBy(() -> jwtConfig.claveJwt("corto", new MockEnvironment()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static Usuario usuario(Long id, Usuario.Role role) {
+        Usuario usuario = new Usuario();
+        usuario.setId(id);
+        usuario.setEmail("ana@mail.com");
+        usuario.setRole(role);
+        return usuario;
+    }
+
+    private static class RelojMovil extends Clock {
+        private Instant ahora = Instant.now();
+
+        void avanzar(Duration tiempo) {
+            ahora = ahora.plus(tiempo);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zona) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return ahora;
+        }
+    }
+}
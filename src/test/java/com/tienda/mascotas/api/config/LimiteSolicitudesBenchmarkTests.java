@@ -0,0 +1,124 @@
+package com.tienda.mascotas.api.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Compara el filtro de límites con un filtro vacío bajo la misma carga en varios hilos y exige
+// que el costo agregado por solicitud quede por debajo de un tope. Fuera de la suite normal:
+//   BENCHMARKS=true mvn test -Dtest=LimiteSolicitudesBenchmarkTests
+@EnabledIfEnvironmentVariable(named = "BENCHMARKS", matches = "true")
+class LimiteSolicitudesBenchmarkTests {
+
+    private static final Logger log = LoggerFactory.getLogger(LimiteSolicitudesBenchmarkTests.class);
+
+    private static final int POR_HILO = 200_000;
+    private static final int CALENTAMIENTO = 3;
+    private static final int RONDAS = 5;
+    // Tope del costo agregado: una solicitud real pasa además por Tomcat, Spring Security y la
+    // caché o la base, que suman bastante más que esto
+    private static final long MAX_SOBRECOSTO_NANOS = 5_000;
+
+    private static final int HILOS = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private static ExecutorService ejecutor;
+
+    @BeforeAll
+    static void preparar() {
+        ejecutor = Executors.newFixedThreadPool(HILOS);
+    }
+
+    @AfterAll
+    static void limpiar() {
+        ejecutor.shutdownNow();
+    }
+
+    @Test
+    void elFiltroAgregaPocoSobreUnFiltroVacio() throws Exception {
+        // Límite que no se alcanza: se mide el camino de la solicitud que entra, el de todas las normales
+        MockEnvironment entorno = new MockEnvironment()
+                .withProperty("limite.catalogo.por-minuto", "60000000")
+                .withProperty("limite.catalogo.rafaga", "100000000");
+        OncePerRequestFilter limite = new LimiteSolicitudesFilter(entorno);
+        OncePerRequestFilter vacio = new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                    throws ServletException, IOException {
+                chain.doFilter(request, response);
+            }
+        };
+
+        // Calentamiento de ambos para que el JIT compile los dos caminos antes de medir
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            medir(vacio);
+            medir(limite);
+        }
+        // Rondas alternadas y la mejor de cada uno: descarta las pausas del GC y del sistema
+        double sinLimite = Double.MAX_VALUE;
+        double conLimite = Double.MAX_VALUE;
+        for (int i = 0; i < RONDAS; i++) {
+            sinLimite = Math.min(sinLimite, medir(vacio));
+            conLimite = Math.min(conLimite, medir(limite));
+        }
+
+        double sobrecosto = conLimite - sinLimite;
+        log.info("{} hilos x {} solicitudes: filtro vacío {} ns/solicitud, límite {} ns/solicitud ({} ns de más)",
+                HILOS, POR_HILO, String.format("%.0f", sinLimite), String.format("%.0f", conLimite),
+                String.format("%.0f", sobrecosto));
+        assertThat(sobrecosto).isLessThan(MAX_SOBRECOSTO_NANOS);
+    }
+
+    // Cada hilo reparte sus solicitudes entre 64 clientes, parte de ellos compartidos con los otros
+    // hilos para que haya compareAndSet en competencia. Devuelve los nanos por solicitud en cada hilo.
+    private double medir(OncePerRequestFilter filtro) throws Exception {
+        List<Future<Long>> tareas = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            int hilo = h;
+            tareas.add(ejecutor.submit(() -> {
+                MockHttpServletRequest[] requests = new MockHttpServletRequest[64];
+                for (int i = 0; i < requests.length; i++) {
+                    requests[i] = new MockHttpServletRequest("GET", "/api/productos/activos");
+                    requests[i].setRemoteAddr("10.0." + (i < 16 ? 0 : hilo + 1) + "." + i);
+                }
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                long[] pasadas = new long[1];
+                FilterChain cadena = (request, respuesta) -> pasadas[0]++;
+
+                long inicio = System.nanoTime();
+                for (int i = 0; i < POR_HILO; i++) {
+                    filtro.doFilter(requests[i & 63], response, cadena);
+                }
+                long tiempo = System.nanoTime() - inicio;
+
+                // Todas pasan por la cadena: ninguna se rechazó ni se cortó
+                assertThat(pasadas[0]).isEqualTo(POR_HILO);
+                assertThat(response.getStatus()).isEqualTo(200);
+                return tiempo;
+            }));
+        }
+        long total = 0;
+        for (Future<Long> tarea : tareas) {
+            total += tarea.get();
+        }
+        return (double) total / HILOS / POR_HILO;
+    }
+}
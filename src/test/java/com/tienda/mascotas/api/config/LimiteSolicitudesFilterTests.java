@@ -0,0 +1,57 @@
+package com.tienda.mascotas.api.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LimiteSolicitudesFilterTests {
+
+    private final AtomicLong reloj = new AtomicLong();
+    private LimiteSolicitudesFilter filtro;
+
+    @BeforeEach
+    void preparar() {
+        MockEnvironment entorno = new MockEnvironment()
+                .withProperty("limite.busqueda.por-minuto", "60")
+                .withProperty("limite.busqueda.rafaga", "3");
+        filtro = new LimiteSolicitudesFilter(entorno, reloj::get);
+    }
+
+    @Test
+    void dejaPasarLaRafagaYLuegoRespondeTooManyRequests() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(enviar("GET", "/api/productos/buscar", "10.0.0.1").getStatus()).isEqualTo(200);
+        }
+
+        MockHttpServletResponse rechazada = enviar("GET", "/api/productos/buscar", "10.0.0.1");
+        assertThat(rechazada.getStatus()).isEqualTo(429);
+        assertThat(rechazada.getHeader("Retry-After")).isEqualTo("1");
+
+        // Otro cliente y otro grupo tienen sus propias cubetas
+        assertThat(enviar("GET", "/api/productos/buscar", "10.0.0.2").getStatus()).isEqualTo(200);
+        assertThat(enviar("GET", "/api/productos/activos", "10.0.0.1").getStatus()).isEqualTo(200);
+        // Lo que no pertenece a ningún grupo no se limita
+        assertThat(enviar("GET", "/api/pedidos/1", "10.0.0.1").getStatus()).isEqualTo(200);
+
+        // Al ritmo sostenido (una por segundo) vuelve a entrar
+        reloj.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(enviar("GET", "/api/productos/buscar", "10.0.0.1").getStatus()).isEqualTo(200);
+        assertThat(enviar("GET", "/api/productos/buscar", "10.0.0.1").getStatus()).isEqualTo(429);
+    }
+
+    private MockHttpServletResponse enviar(String metodo, String ruta, String ip) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(metodo, ruta);
+        request.setRemoteAddr(ip);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filtro.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
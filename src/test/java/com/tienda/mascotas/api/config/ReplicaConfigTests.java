@@ -0,0 +1,105 @@
+package com.tienda.mascotas.api.config;
+
+import com.tienda.mascotas.api.Model.Producto;
+import com.tienda.mascotas.api.Repository.ProductoRepository;
+import com.tienda.mascotas.api.Service.CatalogoCache;
+import com.tienda.mascotas.api.Service.IndiceBusqueda;
+import com.tienda.mascotas.api.Service.InventarioEnMemoria;
+import com.tienda.mascotas.api.Service.Paginacion;
+import com.tienda.mascotas.api.Service.ProductoService;
+import com.tienda.mascotas.api.Service.RegistroCategorias;
+import com.tienda.mascotas.api.Service.VersionCatalogo;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+
+// El enrutamiento con dos bases H2. El monitor consulta funciones de PostgreSQL, así que acá se
+// fija su respuesta; el control real del retraso está en ReplicaPostgresTests.
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.url=jdbc:h2:mem:primario;DB_CLOSE_DELAY=-1",
+        "spring.datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ReplicaConfig.class, ProductoService.class, RegistroCategorias.class, InventarioEnMemoria.class,
+        Paginacion.class, CatalogoCache.class, VersionCatalogo.class, IndiceBusqueda.class, CacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReplicaConfigTests {
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private HikariDataSource primarioDataSource;
+
+    @Autowired
+    private HikariDataSource replicaDataSource;
+
+    @MockitoSpyBean
+    private MonitorReplica monitorReplica;
+
+    @BeforeEach
+    void preparar() {
+        // El primario tiene el esquema de Hibernate; en la réplica alcanza con las dos tablas que se leen
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("CREATE TABLE IF NOT EXISTS categorias (id BIGINT PRIMARY KEY, nombre VARCHAR(255), "
+                + "descripcion VARCHAR(255), activa BOOLEAN)");
+        replica.execute("CREATE TABLE IF NOT EXISTS productos (id BIGINT PRIMARY KEY, nombre VARCHAR(255), "
+                + "descripcion VARCHAR(1000), precio NUMERIC(38, 2), stock INT, imagen_url VARCHAR(255), "
+                + "destacado BOOLEAN, activo BOOLEAN, categoria_id BIGINT, fecha_creacion TIMESTAMP)");
+        for (JdbcTemplate base : new JdbcTemplate[]{new JdbcTemplate(primarioDataSource), replica}) {
+            base.update("DELETE FROM productos");
+            base.update("DELETE FROM categorias");
+            base.update("INSERT INTO categorias (id, nombre, activa) VALUES (1, 'General', true)");
+        }
+        new JdbcTemplate(primarioDataSource).update("INSERT INTO productos (id, nombre, precio, stock, destacado, "
+                + "activo, categoria_id) VALUES (1, 'En el primario', 10, 5, false, true, 1)");
+        replica.update("INSERT INTO productos (id, nombre, precio, stock, destacado, activo, categoria_id) "
+                + "VALUES (1, 'En la réplica', 10, 5, false, true, 1)");
+
+        doReturn(true).when(monitorReplica).isDisponible();
+    }
+
+    @Test
+    void soloLosMetodosMarcadosLeenDeLaReplica() {
+        assertThat(productoService.obtenerPorId(1L)).map(Producto::getNombre).contains("En la réplica");
+
+        assertThat(productoRepository.findById(1L)).map(Producto::getNombre).contains("En el primario");
+
+        TransactionTemplate soloLectura = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        soloLectura.setReadOnly(true);
+        String sinMarca = soloLectura.execute(status -> productoRepository.findById(1L).orElseThrow().getNombre());
+        assertThat(sinMarca).isEqualTo("En el primario");
+
+        String enEscritura = transactionTemplate.execute(status -> productoService.obtenerPorId(1L).orElseThrow().getNombre());
+        assertThat(enEscritura).isEqualTo("En el primario");
+    }
+
+    @Test
+    void conLaReplicaNoDisponibleSeLeeDelPrimario() {
+        doReturn(false).when(monitorReplica).isDisponible();
+
+        assertThat(productoService.obtenerPorId(1L)).map(Producto::getNombre).contains("En el primario");
+    }
+}
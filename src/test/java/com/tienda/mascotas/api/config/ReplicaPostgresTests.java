@@ -0,0 +1,163 @@
+package com.tienda.mascotas.api.config;
+
+import com.tienda.mascotas.api.Model.Producto;
+import com.tienda.mascotas.api.Repository.ProductoRepository;
+import com.tienda.mascotas.api.Service.CatalogoCache;
+import com.tienda.mascotas.api.Service.IndiceBusqueda;
+import com.tienda.mascotas.api.Service.InventarioEnMemoria;
+import com.tienda.mascotas.api.Service.Paginacion;
+import com.tienda.mascotas.api.Service.ProductoService;
+import com.tienda.mascotas.api.Service.RegistroCategorias;
+import com.tienda.mascotas.api.Service.VersionCatalogo;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+
+// Primario y réplica como dos esquemas del mismo PostgreSQL, cada uno con un producto 1 de distinto
+// nombre: el nombre leído dice de qué base salió. Un PostgreSQL que no está en recuperación cuenta
+// como réplica al día. Usa el mismo PostgreSQL local que IndicesPostgresTests, por ejemplo:
+//   PLANES_DB_URL=jdbc:postgresql://localhost:5432/tienda_mascotas PLANES_DB_USER=postgres PLANES_DB_PASSWORD=... mvn test
+@EnabledIfEnvironmentVariable(named = "PLANES_DB_URL", matches = ".+")
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ReplicaConfig.class, ProductoService.class, RegistroCategorias.class, InventarioEnMemoria.class,
+        Paginacion.class, CatalogoCache.class, VersionCatalogo.class, IndiceBusqueda.class, CacheConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReplicaPostgresTests {
+
+    private static final long SUFIJO = System.currentTimeMillis();
+    private static final String PRIMARIO = "primario_" + SUFIJO;
+    private static final String REPLICA = "replica_" + SUFIJO;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private HikariDataSource replicaDataSource;
+
+    @MockitoSpyBean
+    private MonitorReplica monitorReplica;
+
+    @DynamicPropertySource
+    static void bases(DynamicPropertyRegistry propiedades) {
+        propiedades.add("spring.datasource.url", () -> url(PRIMARIO));
+        propiedades.add("spring.datasource.username", () -> System.getenv("PLANES_DB_USER"));
+        propiedades.add("spring.datasource.password", () -> System.getenv("PLANES_DB_PASSWORD"));
+        propiedades.add("spring.datasource.replica.url", () -> url(REPLICA));
+    }
+
+    @BeforeAll
+    static void preparar() throws SQLException {
+        crear(PRIMARIO, "En el primario");
+        crear(REPLICA, "En la réplica");
+    }
+
+    @AfterAll
+    static void limpiar() throws SQLException {
+        try (Connection conexion = conectar(); Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("DROP SCHEMA IF EXISTS " + PRIMARIO + " CASCADE");
+            sentencia.execute("DROP SCHEMA IF EXISTS " + REPLICA + " CASCADE");
+        }
+    }
+
+    @BeforeEach
+    void replicaAlDia() {
+        monitorReplica.verificar();
+    }
+
+    @Test
+    void lasLecturasMarcadasDeLosServiciosVanALaReplica() {
+        assertThat(monitorReplica.isDisponible()).isTrue();
+
+        assertThat(productoService.obtenerPorId(1L)).map(Producto::getNombre).contains("En la réplica");
+        assertThat(productoService.obtenerTodos()).extracting(Producto::getNombre).containsExactly("En la réplica");
+    }
+
+    @Test
+    void losRepositoriosSueltosYLasTransaccionesSinMarcaLeenDelPrimario() {
+        assertThat(productoRepository.findById(1L)).map(Producto::getNombre).contains("En el primario");
+
+        TransactionTemplate soloLectura = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        soloLectura.setReadOnly(true);
+        String sinMarca = soloLectura.execute(status -> productoRepository.findById(1L).orElseThrow().getNombre());
+        assertThat(sinMarca).isEqualTo("En el primario");
+
+        // Dentro de una transacción de escritura, un método marcado se une a ella y sigue en el primario
+        String enEscritura = transactionTemplate.execute(status -> productoService.obtenerPorId(1L).orElseThrow().getNombre());
+        assertThat(enEscritura).isEqualTo("En el primario");
+    }
+
+    @Test
+    void conLaReplicaAtrasadaLasLecturasVuelvenAlPrimario() {
+        // El mismo control del monitor con un retraso máximo que ninguna réplica cumple
+        MonitorReplica exigente = new MonitorReplica(new JdbcTemplate(replicaDataSource), -1);
+        exigente.verificar();
+        assertThat(exigente.isDisponible()).isFalse();
+
+        doReturn(false).when(monitorReplica).isDisponible();
+        assertThat(productoService.obtenerPorId(1L)).map(Producto::getNombre).contains("En el primario");
+    }
+
+    @Test
+    void siLaReplicaNoConectaLasLecturasVuelvenAlPrimario() {
+        monitorReplica.marcarCaida(new SQLException("sin conexión"));
+
+        assertThat(productoService.obtenerPorId(1L)).map(Producto::getNombre).contains("En el primario");
+    }
+
+    private static void crear(String esquema, String nombreProducto) throws SQLException {
+        Flyway.configure()
+                .dataSource(System.getenv("PLANES_DB_URL"), System.getenv("PLANES_DB_USER"), System.getenv("PLANES_DB_PASSWORD"))
+                .schemas(esquema)
+                .load()
+                .migrate();
+        try (Connection conexion = conectar(); Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("SET search_path TO " + esquema);
+            sentencia.execute("INSERT INTO categorias (id, nombre, activa) VALUES (1, 'General', true)");
+            sentencia.execute("INSERT INTO productos (id, nombre, precio, stock, destacado, activo, categoria_id, fecha_creacion) "
+                    + "VALUES (1, '" + nombreProducto + "', 10, 5, false, true, 1, now())");
+        }
+    }
+
+    private static Connection conectar() throws SQLException {
+        return DriverManager.getConnection(System.getenv("PLANES_DB_URL"), System.getenv("PLANES_DB_USER"),
+                System.getenv("PLANES_DB_PASSWORD"));
+    }
+
+    private static String url(String esquema) {
+        String url = System.getenv("PLANES_DB_URL");
+        return url + (url.contains("?") ? "&" : "?") + "currentSchema=" + esquema;
+    }
+}